@@ -2,6 +2,7 @@ import javax.swing.*;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
@@ -11,21 +12,106 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.awt.*;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.net.StandardSocketOptions;
+import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Scanner;
+import java.util.ServiceLoader;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.Adler32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class ErrorDetectionNumberTheory {
 
@@ -38,21 +124,51 @@ public class ErrorDetectionNumberTheory {
     }
 
     static boolean isPrime(int n) {
-        if (n <= 1) return false;
-        if (n <= 3) return true;
-        if (n % 2 == 0 || n % 3 == 0) return false;
-        for (int i = 5; (long) i * i <= n; i += 6) {
-            if (n % i == 0 || n % (i + 2) == 0) return false;
-        }
-        return true;
+        return PrimalityEngine.shared().isPrime(n);
     }
 
     static VerificationResult verify(int sentData, int prime, int receivedData) {
-        int senderChecksum = generateChecksum(sentData, prime);
-        int receiverChecksum = generateChecksum(receivedData, prime);
+        PreparedModulus modulus = PreparedModulus.of(prime);
+        int senderChecksum = modulus.reduce(sentData);
+        int receiverChecksum = modulus.reduce(receivedData);
         return new VerificationResult(sentData, prime, receivedData, senderChecksum, receiverChecksum);
     }
 
+    static VerificationResult verify(ChecksumAlgorithm algorithm, int sentData, int prime, int receivedData) {
+        if (algorithm == ChecksumAlgorithms.MOD) {
+            return verify(sentData, prime, receivedData);
+        }
+        long senderChecksum = algorithm.checksum(sentData, prime);
+        long receiverChecksum = algorithm.checksum(receivedData, prime);
+        return new VerificationResult(algorithm.name(), sentData, prime, receivedData, senderChecksum, receiverChecksum);
+    }
+
+    // Bulk forms of generateChecksum and verify for values already held in primitive arrays. They allocate
+    // nothing: out receives generateChecksum(data[i], key) for every i, bit for bit.
+    static void checksumAll(int[] data, int key, int[] out) {
+        if (out.length < data.length) {
+            throw new IllegalArgumentException("out holds " + out.length + " values, data has " + data.length);
+        }
+        PreparedModulus.of(key).reduceAll(data, out, data.length);
+    }
+
+    // out[i] = floorMod(data[i], |key|), the long counterpart of generateChecksum.
+    static void checksumAll(long[] data, int key, int[] out) {
+        if (out.length < data.length) {
+            throw new IllegalArgumentException("out holds " + out.length + " values, data has " + data.length);
+        }
+        PreparedModulus.of(key).reduceAll(data, out, data.length);
+    }
+
+    // Compares the checksums of sent[i] and received[i] under key. Afterwards bit i of mismatches is set exactly
+    // when they differ; returns how many did. Size the BitSet for sent.length up front to keep it allocation-free.
+    static int verifyAll(int[] sent, int[] received, int key, BitSet mismatches) {
+        if (received.length != sent.length) {
+            throw new IllegalArgumentException("sent has " + sent.length + " values, received has " + received.length);
+        }
+        return PreparedModulus.of(key).verifyAll(sent, received, sent.length, mismatches);
+    }
+
     private static void runCli() {
         Scanner sc = new Scanner(System.in);
 
@@ -85,10 +201,369 @@ public class ErrorDetectionNumberTheory {
         sc.close();
     }
 
+    // Reads lines of integers (commas and/or whitespace between them) from a stream, parsing the bytes in place in a
+    // large buffer so a line costs no allocation. Blank lines, and a header on line 1, are skipped. Used by --pipe
+    // and the Swing bulk verification.
+    static final class IntLineReader {
+        static final int BUFFER_BYTES = 1 << 20;
+
+        private final InputStream in;
+        private final byte[] buffer;
+        private final int maxValues;
+        private int start;
+        private int length;
+        private boolean eof;
+        // True while skipping the rest of a line that did not fit in the buffer.
+        private boolean skipping;
+        // The current line: its number, and either its values or why it was rejected.
+        long line;
+        final long[] values;
+        int count;
+        String malformed;
+        long bytesRead;
+
+        IntLineReader(InputStream in, int maxValues) {
+            this.in = in;
+            this.maxValues = maxValues;
+            this.buffer = new byte[BUFFER_BYTES];
+            this.values = new long[maxValues];
+        }
+
+        // Moves to the next line that is not blank; false at the end of the input. Afterwards either malformed
+        // is set, or values[0..count) hold the line's integers (each within int range).
+        boolean next() throws IOException {
+            while (true) {
+                int end = indexOf(buffer, (byte) '\n', start, length);
+                if (end < 0) {
+                    if (eof) {
+                        if (start >= length) return false;
+                        // A last line without a newline.
+                        end = length;
+                    } else if (start == 0 && length == buffer.length) {
+                        // One line fills the whole buffer: reject it and drop bytes up to its newline.
+                        length = 0;
+                        if (skipping) continue;
+                        skipping = true;
+                        line++;
+                        count = 0;
+                        malformed = "line longer than " + buffer.length + " bytes";
+                        return true;
+                    } else {
+                        fill();
+                        continue;
+                    }
+                }
+                int lineStart = start;
+                start = end + 1;
+                if (skipping) {
+                    skipping = false;
+                    continue;
+                }
+                line++;
+                if (parse(lineStart, end)) return true;
+            }
+        }
+
+        private void fill() throws IOException {
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, length - start);
+                length -= start;
+                start = 0;
+            }
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                eof = true;
+            } else {
+                length += n;
+                bytesRead += n;
+            }
+        }
+
+        // False for a line to skip.
+        private boolean parse(int pos, int end) {
+            count = 0;
+            malformed = null;
+            while (true) {
+                while (pos < end && isSeparator(buffer[pos])) pos++;
+                if (pos == end) return count > 0;
+                if (count == maxValues) {
+                    malformed = "more than " + maxValues + (maxValues == 1 ? " value" : " values");
+                    return true;
+                }
+                boolean negative = buffer[pos] == '-';
+                if (negative || buffer[pos] == '+') pos++;
+                int digitsStart = pos;
+                long value = 0;
+                while (pos < end && buffer[pos] >= '0' && buffer[pos] <= '9' && pos - digitsStart < 11) {
+                    value = value * 10 + (buffer[pos++] - '0');
+                }
+                if (negative) value = -value;
+                if (pos == digitsStart || (pos < end && !isSeparator(buffer[pos])) || value != (int) value) {
+                    // A header row ("sentData,prime,receivedData") is not a record.
+                    if (line == 1 && count == 0 && digitsStart < end && isLetter(buffer[digitsStart])) return false;
+                    malformed = "expected integers";
+                    return true;
+                }
+                values[count++] = value;
+            }
+        }
+
+        private static boolean isSeparator(byte b) {
+            return b == ',' || b == ' ' || b == '\t' || b == ';' || b == '\r';
+        }
+
+        private static boolean isLetter(byte b) {
+            return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '"';
+        }
+
+        private static int indexOf(byte[] bytes, byte b, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (bytes[i] == b) return i;
+            }
+            return -1;
+        }
+    }
+
+    // --pipe: verifies "sentData,prime,receivedData" rows from stdin or the files given, writing
+    // "sentData,prime,receivedData,senderChecksum,receiverChecksum,OK" (or MISMATCH) per row to stdout. Results are
+    // encoded into a large buffer, so a row costs no allocation. Malformed rows go to stderr; the summary too.
+    static final class PipeVerifier {
+        static final int BUFFER_BYTES = 1 << 20;
+        static final int MAX_REPORTED_INVALID = 100;
+
+        private final boolean mismatchesOnly;
+        private final OutputStream stdout;
+        private final Utf8Buffer out = new Utf8Buffer(BUFFER_BYTES + 256);
+        long rows;
+        long matches;
+        long mismatches;
+        long invalid;
+        // Set once stdout is closed (the reader went away, as with head); input stops there.
+        boolean outputClosed;
+
+        PipeVerifier(OutputStream stdout, boolean mismatchesOnly) {
+            this.stdout = stdout;
+            this.mismatchesOnly = mismatchesOnly;
+        }
+
+        // Runs every input in order; "-" (or no file at all) is stdin. Returns the process exit status: 0 when
+        // every row matched, 1 on a mismatch, 2 when a row was malformed or an input could not be read.
+        static int run(List<String> files, boolean mismatchesOnly) {
+            PipeVerifier pipe = new PipeVerifier(new FileOutputStream(FileDescriptor.out), mismatchesOnly);
+            boolean failed = false;
+            long start = System.nanoTime();
+            for (String file : files.isEmpty() ? Collections.singletonList("-") : files) {
+                if (pipe.outputClosed) break;
+                try (InputStream in = file.equals("-") ? new FileInputStream(FileDescriptor.in) : new FileInputStream(file)) {
+                    pipe.verify(in, file.equals("-") ? "stdin" : file);
+                } catch (IOException e) {
+                    System.err.println(file + ": " + e.getMessage());
+                    failed = true;
+                }
+            }
+            pipe.flush();
+            double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+            System.err.printf("Rows: %d (matches %d, mismatches %d, invalid %d) in %.2f s, %.0f rows/s%n",
+                    pipe.rows, pipe.matches, pipe.mismatches, pipe.invalid, seconds, pipe.rows / seconds);
+            return failed || pipe.invalid > 0 ? 2 : pipe.mismatches > 0 ? 1 : 0;
+        }
+
+        void verify(InputStream in, String name) throws IOException {
+            IntLineReader reader = new IntLineReader(in, 3);
+            long[] values = reader.values;
+            while (!outputClosed && reader.next()) {
+                if (reader.malformed != null || reader.count < 3) {
+                    reportInvalid(name, reader.line, reader.malformed != null
+                            ? reader.malformed + " (sentData, prime, receivedData)" : "expected sentData, prime, receivedData");
+                    continue;
+                }
+                int sentData = (int) values[0];
+                int key = (int) values[1];
+                int receivedData = (int) values[2];
+                if (key == 0) {
+                    reportInvalid(name, reader.line, "key/modulus must be non-zero");
+                    continue;
+                }
+
+                PreparedModulus modulus = PreparedModulus.of(key);
+                int senderChecksum = modulus.reduce(sentData);
+                int receiverChecksum = modulus.reduce(receivedData);
+                rows++;
+                boolean ok = senderChecksum == receiverChecksum;
+                if (ok) {
+                    matches++;
+                    if (mismatchesOnly) continue;
+                } else {
+                    mismatches++;
+                }
+                out.append(sentData).append(',').append(key).append(',').append(receivedData).append(',')
+                        .append(senderChecksum).append(',').append(receiverChecksum).append(ok ? ",OK\n" : ",MISMATCH\n");
+                if (out.length() >= BUFFER_BYTES) flush();
+            }
+        }
+
+        private void reportInvalid(String name, long line, String message) {
+            if (invalid++ < MAX_REPORTED_INVALID) {
+                System.err.println(name + ":" + line + ": " + message);
+            }
+        }
+
+        void flush() {
+            try {
+                out.writeTo(stdout);
+                stdout.flush();
+            } catch (IOException e) {
+                outputClosed = true;
+            }
+            out.reset();
+        }
+    }
+
+    private static void runFileChecksum(String file, Integer key, Long expected) {
+        if (key == null || key == 0) {
+            System.out.println("Key/modulus must be a non-zero integer (--key).");
+            return;
+        }
+        Path path = Paths.get(file);
+        long start = System.nanoTime();
+        long checksum;
+        long size;
+        try {
+            size = Files.size(path);
+            checksum = ParallelPayloadChecksum.ofFile(path, key, ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            System.out.println("Failed to read " + file + ": " + e.getMessage());
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("File: " + path.toAbsolutePath());
+        System.out.println("Bytes: " + size);
+        System.out.println("Key/modulus: " + key);
+        System.out.println("Checksum: " + checksum);
+        System.out.printf("Throughput: %.1f MB/s%n", size / 1e6 / Math.max(seconds, 1e-9));
+        if (expected != null) {
+            if (expected == checksum) {
+                System.out.println("\nNo Error Detected");
+            } else {
+                System.out.println("\nError Detected - Data Corrupted (expected " + expected + ")");
+            }
+        }
+    }
+
+    // Rolling scan: every `window`-byte window of the file whose residue equals expected.
+    private static void runWindowScan(String file, Integer key, int window, Long expected) {
+        if (key == null || key == 0) {
+            System.out.println("Key/modulus must be a non-zero integer (--key).");
+            return;
+        }
+        Path path = Paths.get(file);
+        final long[] matches = new long[1];
+        long target = expected == null ? -1 : expected;
+        long start = System.nanoTime();
+        long size;
+        try {
+            size = RollingChecksum.scanFile(path, key, window, target, offset -> {
+                if (matches[0]++ < MAX_LISTED_MATCHES) {
+                    System.out.println("Match at offset " + offset);
+                }
+            });
+        } catch (IOException e) {
+            System.out.println("Failed to read " + file + ": " + e.getMessage());
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("File: " + path.toAbsolutePath());
+        System.out.println("Bytes: " + size);
+        System.out.println("Key/modulus: " + key);
+        System.out.println("Window: " + window + " bytes");
+        if (expected != null) {
+            System.out.println("Matching windows: " + matches[0]
+                    + (matches[0] > MAX_LISTED_MATCHES ? " (first " + MAX_LISTED_MATCHES + " listed)" : ""));
+        }
+        System.out.printf("Throughput: %.1f MB/s%n", size / 1e6 / Math.max(seconds, 1e-9));
+    }
+
+    private static final int MAX_LISTED_MATCHES = 100;
+
+    // --recommend-keys [--from=2] [--to=1000] [--max-delta=1000] [--models=...] [--limit=10]
+    private static void runKeyRecommendation(String[] args) {
+        int from = 2;
+        int to = 1000;
+        long maxDelta = 1000;
+        int[] models = {KeyAdvisor.DELTA, KeyAdvisor.DIGIT, KeyAdvisor.TRANSPOSITION, KeyAdvisor.BIT};
+        int limit = RecommendHandler.DEFAULT_LIMIT;
+        for (String arg : args) {
+            if (arg == null) continue;
+            String value = arg.indexOf('=') > 0 ? arg.substring(arg.indexOf('=') + 1) : null;
+            try {
+                if (arg.startsWith("--from=")) {
+                    from = Integer.parseInt(value);
+                } else if (arg.startsWith("--to=")) {
+                    to = Integer.parseInt(value);
+                } else if (arg.startsWith("--max-delta=")) {
+                    maxDelta = Long.parseLong(value);
+                } else if (arg.startsWith("--limit=")) {
+                    limit = Math.max(1, Math.min(KeyAdvisor.MAX_RESULTS, Integer.parseInt(value)));
+                } else if (arg.startsWith("--models=")) {
+                    models = KeyAdvisor.parseModels(value);
+                    if (models == null) {
+                        System.out.println("Unknown model in " + arg + " (expected delta, digit, transposition or bit)");
+                        return;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid value in " + arg);
+                return;
+            }
+        }
+        String problem = KeyAdvisor.check(from, to, maxDelta);
+        if (problem != null) {
+            System.out.println(problem + " (--from, --to, --max-delta).");
+            return;
+        }
+
+        KeyAdvisor.Ranking ranking = KeyAdvisor.rank(from, to, maxDelta, models);
+        System.out.println("Keys: " + from + " to " + to + " (" + (to - (long) from + 1) + " scored in " + ranking.nanos / 1_000_000 + " ms)");
+        StringBuilder header = new StringBuilder(String.format("%-6s %-12s %-6s %-10s", "Rank", "Key", "Prime", "Score"));
+        for (int m = 0; m < models.length; m++) {
+            String name = KeyAdvisor.MODEL_NAMES[models[m]];
+            System.out.println("  " + name + ": " + ranking.errors[m] + " errors"
+                    + (models[m] == KeyAdvisor.DELTA ? " (0 < |delta| <= " + maxDelta + ")" : ""));
+            header.append(String.format(" %15s", name + " missed"));
+        }
+        System.out.println();
+        System.out.println(header);
+        for (int i = 0; i < Math.min(limit, ranking.best.size()); i++) {
+            KeyAdvisor.Candidate c = ranking.best.get(i);
+            StringBuilder row = new StringBuilder(String.format("%-6d %-12d %-6s %-10.7f", i + 1, c.key, c.prime ? "yes" : "no", c.score));
+            for (long missed : c.missed) {
+                row.append(String.format(" %15d", missed));
+            }
+            System.out.println(row);
+        }
+    }
+
     public static void main(String[] args) {
         boolean cli = false;
+        boolean loadgen = false;
         boolean server = false;
         int port = 8080;
+        int binaryPort = -1;
+        String executorMode = "fixed";
+        Integer threads = null;
+        Integer queue = null;
+        String file = null;
+        Integer key = null;
+        Long expected = null;
+        Integer window = null;
+        String auditDir = null;
+        int auditRetain = AuditLog.DEFAULT_RETAIN;
+        boolean recommendKeys = false;
+        boolean pipe = false;
+        boolean mismatchesOnly = false;
+        List<String> pipeFiles = new ArrayList<>();
 
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
@@ -108,17 +583,151 @@ public class ErrorDetectionNumberTheory {
                     port = parsed;
                 }
                 i++;
+            } else if (arg != null && arg.startsWith("--file=")) {
+                file = arg.substring("--file=".length());
+            } else if (Objects.equals(arg, "--file") && i + 1 < args.length) {
+                file = args[++i];
+            } else if (arg != null && arg.startsWith("--key=")) {
+                key = safeParseInt(arg.substring("--key=".length()));
+            } else if (Objects.equals(arg, "--key") && i + 1 < args.length) {
+                key = safeParseInt(args[++i]);
+            } else if (arg != null && arg.startsWith("--expect=")) {
+                expected = safeParseLong(arg.substring("--expect=".length()));
+            } else if (Objects.equals(arg, "--expect") && i + 1 < args.length) {
+                expected = safeParseLong(args[++i]);
+            } else if (arg != null && arg.startsWith("--window=")) {
+                Integer parsed = safeParseInt(arg.substring("--window=".length()));
+                if (parsed != null && parsed > 0) {
+                    window = parsed;
+                }
+            } else if (arg != null && arg.startsWith("--sieve-bound=")) {
+                Integer parsed = safeParseInt(arg.substring("--sieve-bound=".length()));
+                if (parsed != null && parsed > 0) {
+                    PrimalityEngine.configure(parsed);
+                }
+            } else if (arg != null && arg.startsWith("--prime-limit=")) {
+                Long parsed = safeParseLong(arg.substring("--prime-limit=".length()));
+                if (parsed != null && parsed > 2 && parsed <= PrimeBitmap.FULL_LIMIT) {
+                    PrimeBitmap.configure(parsed, null);
+                }
+            } else if (arg != null && arg.startsWith("--prime-bitmap=")) {
+                PrimeBitmap.configure(0, Paths.get(arg.substring("--prime-bitmap=".length())));
+            } else if (arg != null && arg.startsWith("--cache=")) {
+                Integer parsed = safeParseInt(arg.substring("--cache=".length()));
+                if (parsed != null && parsed >= 0) {
+                    ResponseCache.configure(parsed);
+                }
+            } else if (arg != null && arg.startsWith("--executor=")) {
+                executorMode = arg.substring("--executor=".length());
+            } else if (arg != null && arg.startsWith("--threads=")) {
+                Integer parsed = safeParseInt(arg.substring("--threads=".length()));
+                if (parsed != null && parsed > 0) {
+                    threads = parsed;
+                }
+            } else if (arg != null && arg.startsWith("--queue=")) {
+                Integer parsed = safeParseInt(arg.substring("--queue=".length()));
+                if (parsed != null && parsed > 0) {
+                    queue = parsed;
+                }
+            } else if (arg != null && arg.startsWith("--audit=")) {
+                auditDir = arg.substring("--audit=".length());
+            } else if (arg != null && arg.startsWith("--audit-retain=")) {
+                Integer parsed = safeParseInt(arg.substring("--audit-retain=".length()));
+                if (parsed != null && parsed >= 0) {
+                    auditRetain = parsed;
+                }
+            } else if (Objects.equals(arg, "--pipe")) {
+                pipe = true;
+            } else if (Objects.equals(arg, "--mismatches-only")) {
+                mismatchesOnly = true;
+            } else if (arg != null && (!arg.startsWith("-") || arg.equals("-"))) {
+                pipeFiles.add(arg);
+            } else if (Objects.equals(arg, "--recommend-keys")) {
+                recommendKeys = true;
+            } else if (Objects.equals(arg, "--loadgen")) {
+                loadgen = true;
+            } else if (arg != null && arg.startsWith("--binary-port=")) {
+                Integer parsed = safeParseInt(arg.substring("--binary-port=".length()));
+                if (parsed != null && parsed > 0 && parsed <= 65535) {
+                    binaryPort = parsed;
+                }
+            } else if (Objects.equals(arg, "--binary-port") && i + 1 < args.length) {
+                Integer parsed = safeParseInt(args[i + 1]);
+                if (parsed != null && parsed > 0 && parsed <= 65535) {
+                    binaryPort = parsed;
+                }
+                i++;
+            }
+        }
+
+        if (pipe) {
+            System.exit(PipeVerifier.run(pipeFiles, mismatchesOnly));
+        }
+
+        if (recommendKeys) {
+            runKeyRecommendation(args);
+            return;
+        }
+
+        if (file != null && window != null) {
+            runWindowScan(file, key, window, expected);
+            return;
+        }
+
+        if (file != null) {
+            runFileChecksum(file, key, expected);
+            return;
+        }
+
+        if (auditDir != null && (server || loadgen || binaryPort > 0)) {
+            try {
+                AuditLog.start(Paths.get(auditDir), auditRetain);
+                System.out.println("Audit log: " + Paths.get(auditDir).toAbsolutePath());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to open audit log: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (loadgen) {
+            LoadGenerator.Options options = LoadGenerator.Options.parse(args);
+            if (options == null) return;
+            try {
+                LoadGenerator.run(options, executorMode, threads, queue);
+            } catch (IOException | InterruptedException e) {
+                System.err.println("Load generation failed: " + e.getMessage());
             }
+            return;
         }
 
-        if (cli || GraphicsEnvironment.isHeadless()) {
+        // Server modes need no display, so only fall back to the console when nothing else was asked for.
+        if (cli || (!server && binaryPort < 0 && GraphicsEnvironment.isHeadless())) {
             runCli();
             return;
         }
 
+        if (binaryPort > 0) {
+            try {
+                BinaryVerifyServer.start(binaryPort);
+                System.out.println("Binary verify listener on: 127.0.0.1:" + binaryPort);
+            } catch (IOException e) {
+                System.err.println("Failed to start binary listener: " + e.getMessage());
+                return;
+            }
+            if (!server) {
+                awaitShutdown();
+                return;
+            }
+        }
+
         if (server) {
+            ServerExecutor executor = ServerExecutor.create(executorMode, threads, queue);
+            if (executor == null) {
+                System.err.println("Unknown executor: " + executorMode + " (expected fixed, bounded, stealing or virtual)");
+                return;
+            }
             try {
-                startWebServer(port);
+                startWebServer(port, executor);
             } catch (IOException e) {
                 System.err.println("Failed to start server: " + e.getMessage());
             }
@@ -131,21 +740,20 @@ public class ErrorDetectionNumberTheory {
         });
     }
 
-    private static void startWebServer(int port) throws IOException {
+    private static void startWebServer(int port, ServerExecutor executor) throws IOException {
+        if (PrimeBitmap.configured()) {
+            long start = System.nanoTime();
+            PrimeBitmap primes = PrimeBitmap.load();
+            System.out.printf("Prime bitmap: %d primes below %d ready in %d ms%n",
+                    primes.count(0, primes.limit() - 1), primes.limit(), (System.nanoTime() - start) / 1_000_000);
+        }
         final Path webRoot = Paths.get(System.getProperty("user.dir"), "web").toAbsolutePath().normalize();
-        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
-        server.setExecutor(Executors.newFixedThreadPool(8));
-
-        server.createContext("/api/verify", new VerifyHandler());
-        server.createContext("/api/isPrime", new IsPrimeHandler());
-        server.createContext("/api/explain", new ExplainHandler());
-        server.createContext("/", new StaticHandler(webRoot));
-
-        server.start();
+        HttpServer server = createWebServer(port, executor, webRoot);
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             try {
                 server.stop(0);
+                executor.shutdown();
             } catch (Exception ignored) {
                 // no-op
             }
@@ -153,6 +761,9 @@ public class ErrorDetectionNumberTheory {
 
         String url = "http://localhost:" + port + "/";
         System.out.println("Web UI running at: " + url);
+        String queue = executor.queueCapacity < 0 ? "unbounded" : Integer.toString(executor.queueCapacity);
+        System.out.println("Executor: " + executor.mode + (executor.threads > 0 ? ", " + executor.threads + " threads" : "")
+                + ", queue " + queue);
         try {
             if (Desktop.isDesktopSupported()) {
                 Desktop.getDesktop().browse(URI.create(url));
@@ -161,7 +772,45 @@ public class ErrorDetectionNumberTheory {
             // It's fine if we can't auto-open the browser.
         }
 
-        // Keep the process alive until the user stops it (Ctrl+C).
+        awaitShutdown();
+    }
+
+    // Builds and starts the server on loopback without blocking; port 0 picks a free port.
+    static HttpServer createWebServer(int port, ServerExecutor executor, Path webRoot) throws IOException {
+        // HttpServer writes headers and body separately; with Nagle on, a keep-alive client's next request waits
+        // out the peer's delayed ACK (~40 ms). Only honoured if set before the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+
+        route(server, "/api/verify", new VerifyHandler());
+        route(server, "/api/verify/batch", new BatchVerifyHandler());
+        route(server, "/api/verify/crt", new CrtVerifyHandler());
+        route(server, "/api/payload", new PayloadHandler());
+        route(server, "/api/isPrime", new IsPrimeHandler());
+        route(server, "/api/primes", new PrimesHandler());
+        route(server, "/api/explain", new ExplainHandler());
+        route(server, "/api/executor", new ExecutorStatsHandler(executor));
+        route(server, "/api/cache", new CacheStatsHandler());
+        route(server, "/api/audit", new AuditHandler());
+        route(server, "/api/simulate", new SimulateHandler());
+        route(server, "/api/recommend", new RecommendHandler());
+        route(server, "/metrics", new Metrics.Handler(executor));
+        route(server, "/", new StaticHandler(webRoot));
+
+        server.start();
+        return server;
+    }
+
+    // Registers handler at path behind the executor's 503 guard and the per-route metrics.
+    private static void route(HttpServer server, String path, HttpHandler handler) {
+        server.createContext(path, Metrics.instrument(path, ServerExecutor.admit(handler)));
+    }
+
+    // Keep the process alive until the user stops it (Ctrl+C).
+    private static void awaitShutdown() {
         try {
             new CountDownLatch(1).await();
         } catch (InterruptedException ignored) {
@@ -169,296 +818,5057 @@ public class ErrorDetectionNumberTheory {
         }
     }
 
-    static final class VerifyHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String method = exchange.getRequestMethod();
-            Integer sentData;
-            Integer prime;
-            Integer receivedData;
+    // --loadgen: drives /api/verify, /api/isPrime and /api/explain at a fixed request rate and reports the latency
+    // that causes. The schedule is open-loop: request i is due at start + i / rate whether or not earlier ones
+    // have come back, and its latency is measured from when it was due, not from when a free connection got
+    // around to sending it. A stalled server therefore shows up as queueing in the percentiles instead of
+    // quietly lowering the rate (coordinated omission). Without --target it starts its own server on loopback.
+    static final class LoadGenerator {
+        static final class Options {
+            String target;
+            double rate = 1000;
+            int durationSeconds = 10;
+            int warmupSeconds = 2;
+            int concurrency = 16;
+            // Weights for verify, isPrime, explain.
+            int[] mix = {70, 20, 10};
+            double corruptRatio = 0.1;
+            String corruptMode = "delta";
+            int delta = 1;
+
+            // Returns null (after printing why) when an option is malformed.
+            static Options parse(String[] args) {
+                Options o = new Options();
+                for (String arg : args) {
+                    if (arg == null) continue;
+                    String value = arg.indexOf('=') > 0 ? arg.substring(arg.indexOf('=') + 1) : null;
+                    try {
+                        if (arg.startsWith("--target=")) {
+                            o.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                        } else if (arg.startsWith("--rate=")) {
+                            o.rate = Double.parseDouble(value);
+                        } else if (arg.startsWith("--duration=")) {
+                            o.durationSeconds = Integer.parseInt(value);
+                        } else if (arg.startsWith("--warmup=")) {
+                            o.warmupSeconds = Integer.parseInt(value);
+                        } else if (arg.startsWith("--concurrency=")) {
+                            o.concurrency = Integer.parseInt(value);
+                        } else if (arg.startsWith("--mix=")) {
+                            o.mix = parseMix(value);
+                        } else if (arg.startsWith("--corrupt=")) {
+                            o.corruptRatio = Double.parseDouble(value);
+                        } else if (arg.startsWith("--corrupt-mode=")) {
+                            o.corruptMode = value;
+                        } else if (arg.startsWith("--delta=")) {
+                            o.delta = Integer.parseInt(value);
+                        }
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid value in " + arg);
+                        return null;
+                    }
+                }
+                if (o.rate <= 0 || o.durationSeconds <= 0 || o.warmupSeconds < 0 || o.concurrency <= 0
+                        || o.corruptRatio < 0 || o.corruptRatio > 1 || o.mix == null) {
+                    System.err.println("Expected --rate>0, --duration>0, --warmup>=0, --concurrency>0, --corrupt in [0,1] "
+                            + "and --mix=verify:N,isPrime:N,explain:N");
+                    return null;
+                }
+                if (!Arrays.asList("delta", "bitflip", "random").contains(o.corruptMode)) {
+                    System.err.println("Unknown --corrupt-mode: " + o.corruptMode + " (expected delta, bitflip or random)");
+                    return null;
+                }
+                return o;
+            }
 
-            if ("GET".equalsIgnoreCase(method)) {
-                QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
-                sentData = qp.getInt("sentData");
-                prime = qp.getInt("prime");
-                receivedData = qp.getInt("receivedData");
-            } else if ("POST".equalsIgnoreCase(method)) {
-                String body = HttpUtil.readUtf8Body(exchange);
-                String contentType = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+            private static int[] parseMix(String value) {
+                int[] mix = new int[3];
+                for (String part : value.split(",")) {
+                    String[] kv = part.split("[:=]");
+                    if (kv.length != 2) return null;
+                    int weight = Integer.parseInt(kv[1].trim());
+                    if (weight < 0) return null;
+                    switch (kv[0].trim()) {
+                        case "verify": mix[0] = weight; break;
+                        case "isPrime": mix[1] = weight; break;
+                        case "explain": mix[2] = weight; break;
+                        default: return null;
+                    }
+                }
+                return mix[0] + mix[1] + mix[2] > 0 ? mix : null;
+            }
+        }
 
-                if (contentType.contains("application/json")) {
-                    sentData = JsonUtil.getInt(body, "sentData");
-                    prime = JsonUtil.getInt(body, "prime");
-                    receivedData = JsonUtil.getInt(body, "receivedData");
-                } else {
-                    // Accept form-style: sentData=..&prime=..&receivedData=..
-                    QueryParams qp = QueryParams.parse(body);
-                    sentData = qp.getInt("sentData");
-                    prime = qp.getInt("prime");
-                    receivedData = qp.getInt("receivedData");
+        private static final int[] KEYS = {13, 251, 65521, 2147483629};
+
+        private final Options options;
+        private final String base;
+        private final long start;
+        private final long total;
+        private final long warmup;
+        private final double intervalNanos;
+        private final AtomicLong next = new AtomicLong();
+        // Due time to response, and send to response; only requests after the warm-up are recorded.
+        private final Metrics.Histogram latency = new Metrics.Histogram();
+        private final Metrics.Histogram service = new Metrics.Histogram();
+        private final LongAdder[] sentByKind = {new LongAdder(), new LongAdder(), new LongAdder()};
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder corrupted = new LongAdder();
+        private final LongAdder detected = new LongAdder();
+        private final LongAdder falseAlarms = new LongAdder();
+        private long finished;
+
+        private LoadGenerator(Options options, String base) {
+            this.options = options;
+            this.base = base;
+            this.intervalNanos = 1e9 / options.rate;
+            this.warmup = (long) (options.rate * options.warmupSeconds);
+            this.total = warmup + (long) (options.rate * options.durationSeconds);
+            // Give the workers a moment to start before the first request is due.
+            this.start = System.nanoTime() + 50_000_000L;
+        }
+
+        static void run(Options options, String executorMode, Integer threads, Integer queue) throws IOException, InterruptedException {
+            HttpServer server = null;
+            ServerExecutor executor = null;
+            String base = options.target;
+            if (base == null) {
+                executor = ServerExecutor.create(executorMode, threads, queue);
+                if (executor == null) {
+                    System.err.println("Unknown executor: " + executorMode + " (expected fixed, bounded, stealing or virtual)");
+                    return;
                 }
-            } else {
-                writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
-                return;
+                Path webRoot = Paths.get(System.getProperty("user.dir"), "web").toAbsolutePath().normalize();
+                server = createWebServer(0, executor, webRoot);
+                base = "http://127.0.0.1:" + server.getAddress().getPort();
+                System.out.println("Started server on " + base + " (executor " + executor.mode + ")");
+            }
+            // HttpURLConnection keeps only 5 idle connections per host by default; the rest would reconnect every time.
+            if (System.getProperty("http.maxConnections") == null) {
+                System.setProperty("http.maxConnections", Integer.toString(options.concurrency));
             }
 
-            if (sentData == null || prime == null || receivedData == null) {
-                writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameters: sentData, prime, receivedData\"}");
-                return;
+            try {
+                LoadGenerator generator = new LoadGenerator(options, base);
+                System.out.printf("Load: %.0f req/s for %d s (+%d s warm-up), %d connections, mix verify=%d isPrime=%d explain=%d, "
+                                + "%.0f%% of verifies corrupted (%s)%n", options.rate, options.durationSeconds, options.warmupSeconds,
+                        options.concurrency, options.mix[0], options.mix[1], options.mix[2], options.corruptRatio * 100, options.corruptMode);
+                generator.generate();
+                generator.report();
+            } finally {
+                if (server != null) {
+                    server.stop(0);
+                    executor.shutdown();
+                }
             }
-            if (prime == 0) {
-                writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Key/modulus must be non-zero\"}");
-                return;
+        }
+
+        private void generate() throws InterruptedException {
+            Thread[] workers = new Thread[options.concurrency];
+            for (int w = 0; w < workers.length; w++) {
+                final SplittableRandom random = new SplittableRandom(0x5EED + w);
+                workers[w] = new Thread(() -> work(random), "loadgen-" + w);
+                workers[w].setDaemon(true);
+                workers[w].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
             }
+            finished = System.nanoTime();
+        }
 
-            VerificationResult result = verify(sentData, prime, receivedData);
-            String json = "{" +
-                    "\"ok\":" + result.isOk() + "," +
-                    "\"sentData\":" + result.sentData + "," +
-                    "\"prime\":" + result.prime + "," +
-                    "\"receivedData\":" + result.receivedData + "," +
-                    "\"senderChecksum\":" + result.senderChecksum + "," +
-                    "\"receiverChecksum\":" + result.receiverChecksum + "," +
-                    "\"message\":\"" + (result.isOk() ? "No Error Detected" : "Error Detected - Data Corrupted") + "\"" +
-                    "}";
+        private void work(SplittableRandom random) {
+            byte[] buffer = new byte[8192];
+            int mixTotal = options.mix[0] + options.mix[1] + options.mix[2];
+            for (long i; (i = next.getAndIncrement()) < total; ) {
+                long due = start + (long) (i * intervalNanos);
+                for (long now; (now = System.nanoTime()) < due; ) {
+                    LockSupport.parkNanos(due - now);
+                }
+
+                int pick = random.nextInt(mixTotal);
+                int kind = pick < options.mix[0] ? 0 : pick < options.mix[0] + options.mix[1] ? 1 : 2;
+                int key = KEYS[random.nextInt(KEYS.length)];
+                int sentData = random.nextInt();
+                boolean corrupt = false;
+                String path;
+                if (kind == 0) {
+                    int receivedData = sentData;
+                    if (random.nextDouble() < options.corruptRatio) {
+                        receivedData = corrupt(sentData, random);
+                        corrupt = receivedData != sentData;
+                    }
+                    path = "/api/verify?sentData=" + sentData + "&prime=" + key + "&receivedData=" + receivedData;
+                } else if (kind == 1) {
+                    path = "/api/isPrime?value=" + (random.nextInt() & Integer.MAX_VALUE);
+                } else {
+                    path = "/api/explain?data=" + sentData + "&prime=" + key;
+                }
 
-            writeJson(exchange, 200, json);
+                long sent = System.nanoTime();
+                int length = request(path, buffer);
+                long done = System.nanoTime();
+                if (i < warmup) continue;
+
+                latency.record(done - due);
+                service.record(done - sent);
+                sentByKind[kind].increment();
+                if (length < 0) {
+                    failures.increment();
+                } else if (kind == 0) {
+                    // The verify body starts {"ok":true or {"ok":false.
+                    boolean mismatch = length > 6 && buffer[6] == 'f';
+                    if (corrupt) {
+                        corrupted.increment();
+                        if (mismatch) detected.increment();
+                    } else if (mismatch) {
+                        falseAlarms.increment();
+                    }
+                }
+            }
         }
 
-        private static void writeJson(HttpExchange exchange, int status, String json) throws IOException {
-            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-            Headers headers = exchange.getResponseHeaders();
-            headers.set("Content-Type", "application/json; charset=utf-8");
-            headers.set("Cache-Control", "no-store");
-            exchange.sendResponseHeaders(status, bytes.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(bytes);
+        // The error modes of the web UI ("add delta"), plus a single bit flip and a random replacement.
+        private int corrupt(int value, SplittableRandom random) {
+            switch (options.corruptMode) {
+                case "bitflip":
+                    return value ^ (1 << random.nextInt(32));
+                case "random":
+                    return random.nextInt();
+                default:
+                    return value + options.delta;
             }
         }
-    }
 
-    static final class IsPrimeHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
-                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
-                return;
+        // Returns the body length read into buffer (truncated to its size), or -1 on a transport error or non-200.
+        private int request(String path, byte[] buffer) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+                int status = connection.getResponseCode();
+                InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                int length = 0;
+                if (in != null) {
+                    try (InputStream body = in) {
+                        for (int n; length < buffer.length && (n = body.read(buffer, length, buffer.length - length)) > 0; ) {
+                            length += n;
+                        }
+                        // Read to the end so the connection goes back to the keep-alive pool.
+                        while (body.read() >= 0) {
+                            // discard
+                        }
+                    }
+                }
+                return status == 200 ? length : -1;
+            } catch (IOException e) {
+                return -1;
             }
+        }
 
-            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
-            Integer value = qp.getInt("value");
-            if (value == null) {
-                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameter: value\"}");
-                return;
+        private void report() {
+            long requests = sentByKind[0].sum() + sentByKind[1].sum() + sentByKind[2].sum();
+            // Below the target rate when the server could not keep up: the last responses arrive after the schedule ends.
+            double elapsed = (finished - (start + warmup * intervalNanos)) / 1e9;
+            System.out.printf("Requests: %d (%.1f req/s achieved), verify %d, isPrime %d, explain %d, failed %d%n",
+                    requests, requests / elapsed, sentByKind[0].sum(), sentByKind[1].sum(), sentByKind[2].sum(), failures.sum());
+            printPercentiles("Latency (from due time)", latency);
+            printPercentiles("Service time (from send)", service);
+            if (corrupted.sum() > 0 || falseAlarms.sum() > 0) {
+                System.out.printf("Corrupted verifies: %d, detected %d (%.2f%%), false alarms %d%n", corrupted.sum(), detected.sum(),
+                        corrupted.sum() == 0 ? 0.0 : 100.0 * detected.sum() / corrupted.sum(), falseAlarms.sum());
             }
+        }
 
-            boolean prime = isPrime(value);
-            String json = "{" +
-                    "\"ok\":true," +
-                    "\"value\":" + value + "," +
-                    "\"isPrime\":" + prime +
-                    "}";
-            VerifyHandler.writeJson(exchange, 200, json);
+        private static void printPercentiles(String label, Metrics.Histogram histogram) {
+            long[] counts = histogram.snapshot();
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) {
+                System.out.println(label + ": no samples");
+                return;
+            }
+            StringBuilder line = new StringBuilder(label).append(':');
+            double[] quantiles = {0.5, 0.9, 0.99, 0.999, 0.9999, 1.0};
+            String[] names = {"p50", "p90", "p99", "p99.9", "p99.99", "max"};
+            for (int q = 0; q < quantiles.length; q++) {
+                line.append(String.format(" %s=%.3fms", names[q], Metrics.Histogram.quantile(counts, total, quantiles[q]) / 1e6));
+            }
+            System.out.println(line);
         }
     }
 
-    static final class ExplainHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
-                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
-                return;
+    // The web server's request executor. Every mode is wrapped the same way so that queue depth (accepted but
+    // not started) and active (running) counts mean the same thing whichever pool is underneath.
+    //   fixed    - availableProcessors threads (or --threads=N), unbounded queue
+    //   bounded  - --threads=N threads and a --queue=N slot queue; overflow is answered with 503
+    //   stealing - a work-stealing ForkJoinPool
+    //   virtual  - one virtual thread per request on JDKs that have them; fixed on older ones
+    static final class ServerExecutor implements Executor {
+        static final int DEFAULT_QUEUE = 1024;
+        // Set while a rejected exchange runs on the overflow thread, so admit() answers 503.
+        private static final ThreadLocal<Boolean> REJECTING = new ThreadLocal<>();
+        // Rejected exchanges still have to read their request before they can be answered, which can block on a
+        // slow client; they do that here rather than on the server's dispatcher thread.
+        private static final ExecutorService OVERFLOW = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "http-overflow");
+            t.setDaemon(true);
+            return t;
+        });
+
+        final String mode;
+        final int threads;
+        final int queueCapacity;
+        private final ExecutorService delegate;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        private ServerExecutor(String mode, int threads, int queueCapacity, ExecutorService delegate) {
+            this.mode = mode;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.delegate = delegate;
+        }
+
+        // Returns null for an unknown mode. threads and queue fall back to defaults when null.
+        static ServerExecutor create(String mode, Integer threads, Integer queue) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            int poolSize = threads != null ? threads : cores;
+            switch (mode) {
+                case "fixed":
+                    return new ServerExecutor("fixed", poolSize, -1, Executors.newFixedThreadPool(poolSize));
+                case "bounded": {
+                    int capacity = queue != null ? queue : DEFAULT_QUEUE;
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(capacity), new ThreadPoolExecutor.AbortPolicy());
+                    return new ServerExecutor("bounded", poolSize, capacity, pool);
+                }
+                case "stealing":
+                    return new ServerExecutor("stealing", poolSize, -1, Executors.newWorkStealingPool(poolSize));
+                case "virtual":
+                    try {
+                        ExecutorService virtual = (ExecutorService) Executors.class
+                                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                        return new ServerExecutor("virtual", 0, -1, virtual);
+                    } catch (ReflectiveOperationException e) {
+                        System.err.println("Virtual threads need Java 21+; using a fixed pool of " + poolSize + " threads.");
+                        return new ServerExecutor("fixed", poolSize, -1, Executors.newFixedThreadPool(poolSize));
+                    }
+                default:
+                    return null;
             }
+        }
 
-            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
-            Integer data = qp.getInt("data");
-            Integer prime = qp.getInt("prime");
-            if (data == null || prime == null) {
-                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameters: data, prime\"}");
+        @Override
+        public void execute(Runnable task) {
+            queued.incrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    queued.decrementAndGet();
+                    active.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        active.decrementAndGet();
+                        completed.incrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                // The exchange still has to be answered, so run it on the overflow thread with the 503 flag set;
+                // admit() then replies without invoking the real handler.
+                OVERFLOW.execute(() -> {
+                    REJECTING.set(Boolean.TRUE);
+                    try {
+                        task.run();
+                    } finally {
+                        REJECTING.remove();
+                    }
+                });
+            }
+        }
+
+        // Wraps a context's handler so that exchanges the pool rejected get a 503 instead.
+        static HttpHandler admit(HttpHandler handler) {
+            return exchange -> {
+                if (REJECTING.get() == null) {
+                    handler.handle(exchange);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                // Closing the connection sheds the client's follow-up requests as well.
+                exchange.getResponseHeaders().set("Connection", "close");
+                VerifyHandler.writeJson(exchange, 503, "{\"ok\":false,\"message\":\"Server busy, try again\"}");
+            };
+        }
+
+        int queueDepth() {
+            return queued.get();
+        }
+
+        int activeThreads() {
+            return active.get();
+        }
+
+        long completed() {
+            return completed.get();
+        }
+
+        long rejected() {
+            return rejected.get();
+        }
+
+        void shutdown() {
+            delegate.shutdown();
+        }
+
+        String toJson() {
+            return "{\"ok\":true,\"mode\":\"" + mode + "\",\"threads\":" + threads
+                    + ",\"queueCapacity\":" + queueCapacity + ",\"queueDepth\":" + queueDepth()
+                    + ",\"active\":" + activeThreads() + ",\"completed\":" + completed()
+                    + ",\"rejected\":" + rejected() + "}";
+        }
+    }
+
+    // GET /api/executor - the server executor's gauges.
+    static final class ExecutorStatsHandler implements HttpHandler {
+        private final ServerExecutor executor;
+
+        ExecutorStatsHandler(ServerExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            VerifyHandler.writeJson(exchange, 200, executor.toJson());
+        }
+    }
+
+    // Fixed-size frames over plain TCP, for clients that need far more verifications per second than HTTP allows.
+    // Request: int32 sentData, int32 prime, int32 receivedData (big-endian).
+    // Response: int32 senderChecksum, int32 receiverChecksum, flag byte (see FLAG_*).
+    // Clients may pipeline any number of frames; responses come back in request order.
+    static final class BinaryVerifyServer implements Runnable {
+        static final int REQUEST_FRAME_BYTES = 12;
+        static final int RESPONSE_FRAME_BYTES = 9;
+        static final byte FLAG_MISMATCH = 0;
+        static final byte FLAG_MATCH = 1;
+        static final byte FLAG_INVALID_KEY = 2;
+
+        static final int FRAMES_PER_BUFFER = 4096;
+
+        private final ServerSocketChannel serverChannel;
+        private final Selector selector;
+        // Only the selector thread touches this, so buffers from closed connections are recycled without locking.
+        private final ArrayDeque<Connection> idle = new ArrayDeque<>();
+
+        private BinaryVerifyServer(ServerSocketChannel serverChannel, Selector selector) {
+            this.serverChannel = serverChannel;
+            this.selector = selector;
+        }
+
+        static BinaryVerifyServer start(int port) throws IOException {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.bind(new InetSocketAddress("127.0.0.1", port));
+            channel.configureBlocking(false);
+            Selector selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+
+            BinaryVerifyServer server = new BinaryVerifyServer(channel, selector);
+            Thread t = new Thread(server, "binary-verify");
+            t.setDaemon(true);
+            t.start();
+            return server;
+        }
+
+        int port() throws IOException {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        }
+
+        void stop() {
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException ignored) {
+                // no-op
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        try {
+                            if (!key.isValid()) continue;
+                            if (key.isAcceptable()) {
+                                accept();
+                            } else {
+                                service(key);
+                            }
+                        } catch (IOException e) {
+                            close(key);
+                        }
+                    }
+                }
+            } catch (IOException | java.nio.channels.ClosedSelectorException ignored) {
+                // Listener stopped.
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel client = serverChannel.accept();
+            if (client == null) return;
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection conn = idle.poll();
+            if (conn == null) {
+                conn = new Connection();
+            }
+            client.register(selector, SelectionKey.OP_READ, conn);
+        }
+
+        private void service(SelectionKey key) throws IOException {
+            SocketChannel client = (SocketChannel) key.channel();
+            Connection conn = (Connection) key.attachment();
+
+            if (key.isReadable() && client.read(conn.in) < 0) {
+                conn.eof = true;
+            }
+
+            // Answer and send until neither moves: a write can free room for frames that are already buffered,
+            // and a client blocked on its responses sends nothing more to wake us for them.
+            while (true) {
+                int answered = conn.process();
+                conn.out.flip();
+                int written = client.write(conn.out);
+                conn.out.compact();
+                if (answered == 0 && written == 0) break;
+            }
+
+            boolean pendingOut = conn.out.position() > 0;
+            boolean pendingIn = conn.in.position() >= REQUEST_FRAME_BYTES;
+            if (conn.eof && !pendingOut && !pendingIn) {
+                close(key);
                 return;
             }
-            if (prime == 0) {
+            // Stop reading while the input buffer is full; the peer is then throttled by TCP flow control. Buffered
+            // frames keep OP_WRITE set, so they are answered once the socket takes more output.
+            int ops = (conn.eof || !conn.in.hasRemaining()) ? 0 : SelectionKey.OP_READ;
+            if (pendingOut || pendingIn) ops |= SelectionKey.OP_WRITE;
+            key.interestOps(ops);
+        }
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // no-op
+            }
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection conn = (Connection) attachment;
+                conn.in.clear();
+                conn.out.clear();
+                conn.eof = false;
+                idle.push(conn);
+            }
+        }
+
+        static final class Connection {
+            final ByteBuffer in = ByteBuffer.allocateDirect(REQUEST_FRAME_BYTES * FRAMES_PER_BUFFER);
+            final ByteBuffer out = ByteBuffer.allocateDirect(RESPONSE_FRAME_BYTES * FRAMES_PER_BUFFER);
+            // The client has shut down its output; what is buffered is still answered.
+            boolean eof;
+
+            // Answers every complete request frame that fits into the output buffer; returns how many it answered.
+            int process() {
+                in.flip();
+                int answered = 0;
+                long matches = 0;
+                long mismatches = 0;
+                while (in.remaining() >= REQUEST_FRAME_BYTES && out.remaining() >= RESPONSE_FRAME_BYTES) {
+                    answered++;
+                    int sentData = in.getInt();
+                    int prime = in.getInt();
+                    int receivedData = in.getInt();
+                    if (prime == 0) {
+                        out.putInt(0).putInt(0).put(FLAG_INVALID_KEY);
+                        continue;
+                    }
+                    PreparedModulus modulus = PreparedModulus.of(prime);
+                    int senderChecksum = modulus.reduce(sentData);
+                    int receiverChecksum = modulus.reduce(receivedData);
+                    boolean match = senderChecksum == receiverChecksum;
+                    AuditLog.record(ChecksumAlgorithms.MOD, sentData, prime, receivedData);
+                    out.putInt(senderChecksum)
+                            .putInt(receiverChecksum)
+                            .put(match ? FLAG_MATCH : FLAG_MISMATCH);
+                    if (match) matches++; else mismatches++;
+                }
+                Metrics.recordOutcomes(matches, mismatches);
+                in.compact();
+                return answered;
+            }
+        }
+    }
+
+    static final class VerifyHandler implements HttpHandler {
+        static final String[] VERIFY_KEYS = {"sentData", "prime", "receivedData"};
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            QueryParams query = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            String algoName = query.get("algo");
+            Integer sentData;
+            Integer prime;
+            Integer receivedData;
+
+            if ("GET".equalsIgnoreCase(method)) {
+                sentData = query.getInt("sentData");
+                prime = query.getInt("prime");
+                receivedData = query.getInt("receivedData");
+            } else if ("POST".equalsIgnoreCase(method)) {
+                String body = HttpUtil.readUtf8Body(exchange);
+                String contentType = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+
+                if (contentType.contains("application/json")) {
+                    Integer[] values = JsonUtil.readInts(body, VERIFY_KEYS);
+                    sentData = values[0];
+                    prime = values[1];
+                    receivedData = values[2];
+                } else {
+                    // Accept form-style: sentData=..&prime=..&receivedData=..
+                    QueryParams qp = QueryParams.parse(body);
+                    sentData = qp.getInt("sentData");
+                    prime = qp.getInt("prime");
+                    receivedData = qp.getInt("receivedData");
+                    if (qp.get("algo") != null) algoName = qp.get("algo");
+                }
+            } else {
+                writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            ChecksumAlgorithm algorithm = ChecksumAlgorithms.forName(algoName);
+            if (algorithm == null) {
+                writeJson(exchange, 400, unknownAlgorithmJson());
+                return;
+            }
+            if (!algorithm.usesKey() && prime == null) {
+                prime = 0;
+            }
+            if (sentData == null || prime == null || receivedData == null) {
+                writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameters: sentData, prime, receivedData\"}");
+                return;
+            }
+            if (prime == 0 && algorithm.usesKey()) {
+                writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Key/modulus must be non-zero\"}");
+                return;
+            }
+
+            final int sent = sentData;
+            final int key = prime;
+            final int received = receivedData;
+            Utf8Buffer cacheKey = BufferPool.cacheKey().append("verify:").append(algorithm.name())
+                    .append(':').append(sent).append(':').append(key).append(':').append(received);
+            Utf8Buffer body = ResponseCache.cachedVerification(cacheKey, out -> {
+                VerificationResult result = verify(algorithm, sent, key, received);
+                toJson(result, out);
+                return result.isOk();
+            }, Metrics::recordOutcome);
+            AuditLog.record(algorithm, sent, key, received);
+            writeJson(exchange, 200, body);
+        }
+
+        static Utf8Buffer toJson(VerificationResult result, Utf8Buffer out) {
+            out.append("{\"ok\":").append(result.isOk()).append(',');
+            if (!result.algorithm.equals(ChecksumAlgorithms.MOD.name())) {
+                out.append("\"algo\":\"").append(result.algorithm).append("\",");
+            }
+            return out.append("\"sentData\":").append(result.sentData)
+                    .append(",\"prime\":").append(result.prime)
+                    .append(",\"receivedData\":").append(result.receivedData)
+                    .append(",\"senderChecksum\":").appendUnsigned(result.senderChecksum)
+                    .append(",\"receiverChecksum\":").appendUnsigned(result.receiverChecksum)
+                    .append(",\"message\":\"").append(result.isOk() ? "No Error Detected" : "Error Detected - Data Corrupted")
+                    .append("\"}");
+        }
+
+        static String unknownAlgorithmJson() {
+            return "{\"ok\":false,\"message\":\"Unknown algo; expected one of: " + String.join(", ", ChecksumAlgorithms.names()) + "\"}";
+        }
+
+        private static void writeJson(HttpExchange exchange, int status, String json) throws IOException {
+            writeJson(exchange, status, BufferPool.response().append(json));
+        }
+
+        // The whole body goes out in one write, with its length known up front.
+        private static void writeJson(HttpExchange exchange, int status, Utf8Buffer body) throws IOException {
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "application/json; charset=utf-8");
+            headers.set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(status, body.length());
+            try (OutputStream os = exchange.getResponseBody()) {
+                body.writeTo(os);
+            }
+        }
+
+    }
+
+    static final class BatchVerifyHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+            ChecksumAlgorithm algorithm = ChecksumAlgorithms.forName(QueryParams.parse(exchange.getRequestURI().getRawQuery()).get("algo"));
+            if (algorithm == null) {
+                VerifyHandler.writeJson(exchange, 400, VerifyHandler.unknownAlgorithmJson());
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "application/x-ndjson; charset=utf-8");
+            headers.set("Cache-Control", "no-store");
+            // Length 0 selects chunked transfer encoding, so rows go out while the body is still arriving.
+            exchange.sendResponseHeaders(200, 0);
+
+            long line = 0;
+            long matches = 0;
+            long mismatches = 0;
+            long invalid = 0;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            // Rows are encoded into the pooled response buffer and go out in blocks of about 8 KiB.
+            Utf8Buffer out = BufferPool.response();
+            try (OutputStream os = exchange.getResponseBody()) {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    line++;
+                    String row = text.trim();
+                    if (row.isEmpty() || (line == 1 && row.startsWith("sentData"))) {
+                        // Blank lines and a CSV header row are not records.
+                        continue;
+                    }
+
+                    Integer[] triple = parseRow(row);
+                    if (triple == null) {
+                        invalid++;
+                        out.append(rowError(line, "Expected sentData, prime, receivedData"));
+                    } else if (triple[1] == 0 && algorithm.usesKey()) {
+                        invalid++;
+                        out.append(rowError(line, "Key/modulus must be non-zero"));
+                    } else {
+                        VerificationResult result = verify(algorithm, triple[0], triple[1], triple[2]);
+                        AuditLog.record(algorithm, triple[0], triple[1], triple[2]);
+                        if (result.isOk()) {
+                            matches++;
+                        } else {
+                            mismatches++;
+                        }
+                        VerifyHandler.toJson(result, out);
+                    }
+                    out.append('\n');
+
+                    // Flush whenever the client has nothing more buffered, so interactive senders see results promptly.
+                    boolean idle = !reader.ready();
+                    if (idle || out.length() >= 8192) {
+                        out.writeTo(os);
+                        out.reset();
+                        if (idle) os.flush();
+                    }
+                }
+
+                Metrics.recordOutcomes(matches, mismatches);
+                out.append("{\"summary\":true,\"rows\":").append(matches + mismatches + invalid)
+                        .append(",\"matches\":").append(matches)
+                        .append(",\"mismatches\":").append(mismatches)
+                        .append(",\"invalid\":").append(invalid)
+                        .append("}\n");
+                out.writeTo(os);
+            }
+        }
+
+        // Accepts either a JSON object per line or a CSV row "sentData,prime,receivedData".
+        private static Integer[] parseRow(String row) {
+            Integer sentData;
+            Integer prime;
+            Integer receivedData;
+            if (row.charAt(0) == '{') {
+                Integer[] values = JsonUtil.readInts(row, VerifyHandler.VERIFY_KEYS);
+                sentData = values[0];
+                prime = values[1];
+                receivedData = values[2];
+            } else {
+                String[] cols = row.split(",", -1);
+                if (cols.length != 3) return null;
+                sentData = safeParseInt(cols[0]);
+                prime = safeParseInt(cols[1]);
+                receivedData = safeParseInt(cols[2]);
+            }
+            if (sentData == null || prime == null || receivedData == null) return null;
+            return new Integer[] {sentData, prime, receivedData};
+        }
+
+        private static String rowError(long line, String message) {
+            return "{\"ok\":false,\"line\":" + line + ",\"message\":\"" + message + "\"}";
+        }
+    }
+
+    // GET /api/verify/crt?keys=k1,k2,...&sentData=..&receivedData=..   (or residues=r1,r2,... in place of sentData)
+    // Verifies against the residues of several pairwise-coprime keys and, where the keys allow, says where the
+    // error is and what was sent. POST takes the same parameters form-encoded.
+    static final class CrtVerifyHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            QueryParams qp;
+            if ("GET".equalsIgnoreCase(method)) {
+                qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            } else if ("POST".equalsIgnoreCase(method)) {
+                qp = QueryParams.parse(HttpUtil.readUtf8Body(exchange));
+            } else {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            int[] keys = parseList(qp.get("keys"));
+            Integer sentData = qp.getInt("sentData");
+            int[] residues = parseList(qp.get("residues"));
+            Integer receivedData = qp.getInt("receivedData");
+            if (keys == null || receivedData == null || (sentData == null && residues == null)) {
+                VerifyHandler.writeJson(exchange, 400,
+                        "{\"ok\":false,\"message\":\"Missing parameters: keys, sentData (or residues), receivedData\"}");
+                return;
+            }
+            CrtKeySet keySet;
+            try {
+                keySet = CrtKeySet.of(keys);
+            } catch (IllegalArgumentException e) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+
+            long[] senderResidues;
+            if (sentData != null) {
+                senderResidues = keySet.residues(sentData);
+            } else {
+                if (residues.length != keys.length) {
+                    VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Expected one residue per key\"}");
+                    return;
+                }
+                senderResidues = new long[residues.length];
+                for (int i = 0; i < residues.length; i++) {
+                    if (residues[i] < 0 || residues[i] >= keySet.moduli[i]) {
+                        VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Residue " + residues[i]
+                                + " is out of range for key " + keys[i] + "\"}");
+                        return;
+                    }
+                    senderResidues[i] = residues[i];
+                }
+            }
+
+            final long[] sent = senderResidues;
+            final int received = receivedData;
+            Utf8Buffer cacheKey = BufferPool.cacheKey().append("crt:").appendList(keys).append(':').appendList(sent)
+                    .append(':').append(received);
+            Utf8Buffer body = ResponseCache.cachedVerification(cacheKey, out -> {
+                CrtVerification result = keySet.verify(sent, received);
+                toJson(result, out);
+                return result.isOk();
+            }, Metrics::recordOutcome);
+            VerifyHandler.writeJson(exchange, 200, body);
+        }
+
+        static Utf8Buffer toJson(CrtVerification result, Utf8Buffer sb) {
+            sb.append("{\"ok\":").append(result.isOk());
+            sb.append(",\"keys\":").appendList(result.keySet.keys);
+            sb.append(",\"senderResidues\":").appendList(result.senderResidues);
+            sb.append(",\"receivedData\":").append(result.receivedData);
+            sb.append(",\"syndromes\":").appendList(result.syndromes);
+            sb.append(",\"corrected\":").append(result.detected && result.correctedData != null);
+            String message;
+            if (!result.detected) {
+                message = "No Error Detected";
+            } else if (result.correctedData == null) {
+                message = "Error Detected - not correctable with these keys";
+            } else {
+                String kind = result.errorKind();
+                int position = result.position();
+                sb.append(",\"correctedData\":").append((int) result.correctedData);
+                sb.append(",\"error\":").append(result.error());
+                sb.append(",\"errorKind\":\"").append(kind).append('"');
+                if (position >= 0) sb.append(",\"position\":").append(position);
+                switch (kind) {
+                    case "digit":
+                        message = "Error Corrected - decimal digit " + position + " (10^" + position + " place) was changed";
+                        break;
+                    case "bit":
+                        message = "Error Corrected - bit " + position + " was flipped";
+                        break;
+                    default:
+                        message = "Error Corrected - received data was off by " + result.error();
+                        break;
+                }
+            }
+            return sb.append(",\"message\":\"").append(message).append("\"}");
+        }
+
+        // "1,2,3" -> {1, 2, 3}; null when missing or malformed.
+        private static int[] parseList(String text) {
+            if (text == null || text.isEmpty()) return null;
+            String[] parts = text.split(",", -1);
+            int[] values = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                Integer v = safeParseInt(parts[i].trim());
+                if (v == null) return null;
+                values[i] = v;
+            }
+            return values;
+        }
+    }
+
+    // POST /api/payload?key=k[&expected=c]: the raw request body is checksummed as one big number while it streams in.
+    static final class PayloadHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            Integer key = qp.getInt("key");
+            String expectedText = qp.get("expected");
+            Long expected = safeParseLong(expectedText);
+            if (key == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameter: key\"}");
+                return;
+            }
+            if (key == 0) {
                 VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Key/modulus must be non-zero\"}");
                 return;
             }
+            if (expectedText != null && expected == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Invalid parameter: expected\"}");
+                return;
+            }
+
+            PayloadChecksum checksum = new PayloadChecksum(key).update(exchange.getRequestBody(), new byte[64 * 1024]);
+            boolean ok = expected == null || expected == checksum.value();
+            if (expected != null) {
+                Metrics.recordOutcome(ok);
+            }
+            String json = "{" +
+                    "\"ok\":" + ok + "," +
+                    "\"key\":" + key + "," +
+                    "\"bytes\":" + checksum.length() + "," +
+                    "\"checksum\":" + checksum.value() +
+                    (expected == null ? "" : ",\"expected\":" + expected + ",\"message\":\"" + (ok ? "No Error Detected" : "Error Detected - Data Corrupted") + "\"") +
+                    "}";
+            VerifyHandler.writeJson(exchange, 200, json);
+        }
+    }
+
+    static final class IsPrimeHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            Integer intValue = qp.getInt("value");
+            // Values beyond int range go to the long / BigInteger paths of the engine.
+            BigInteger value = intValue != null ? BigInteger.valueOf(intValue) : safeParseBigInteger(qp.get("value"));
+            if (value == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameter: value\"}");
+                return;
+            }
+
+            Utf8Buffer cacheKey = BufferPool.cacheKey().append("isPrime:");
+            if (intValue != null) {
+                cacheKey.append((int) intValue);
+            } else {
+                cacheKey.append(value.toString());
+            }
+            VerifyHandler.writeJson(exchange, 200, ResponseCache.cached(cacheKey, out -> {
+                boolean prime = intValue != null ? isPrime(intValue) : PrimalityEngine.shared().isPrime(value);
+                out.append("{\"ok\":true,\"value\":");
+                if (intValue != null) {
+                    out.append((int) intValue);
+                } else {
+                    out.append(value.toString());
+                }
+                out.append(",\"isPrime\":").append(prime).append('}');
+            }));
+        }
+    }
+
+    // GET /api/primes?from=&to=          streams the primes in [from, to]
+    // GET /api/primes/count?from=&to=    number of primes in [from, to]
+    // GET /api/primes/nth?n=             the n-th prime (n = 1 gives 2)
+    // GET /api/primes/next?value=        the smallest prime greater than value
+    static final class PrimesHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            String op = path.length() > "/api/primes/".length() ? path.substring("/api/primes/".length()) : "";
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+
+            switch (op) {
+                case "nth": {
+                    Integer n = qp.getInt("n");
+                    if (n == null || n < 1) {
+                        VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameter: n (>= 1)\"}");
+                        return;
+                    }
+                    PrimeBitmap primes = PrimeBitmap.covering(PrimeBitmap.nthBound(n));
+                    long prime = primes.nth(n);
+                    VerifyHandler.writeJson(exchange, prime < 0 ? 404 : 200, prime < 0
+                            ? "{\"ok\":false,\"message\":\"Beyond the sieve limit of " + primes.limit() + "\"}"
+                            : "{\"ok\":true,\"n\":" + n + ",\"prime\":" + prime + "}");
+                    return;
+                }
+                case "next": {
+                    Integer value = qp.getInt("value");
+                    if (value == null) {
+                        VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameter: value\"}");
+                        return;
+                    }
+                    // Gaps between primes below 2^31 are under 300.
+                    PrimeBitmap primes = PrimeBitmap.covering(value + 512L);
+                    long prime = primes.nextPrime(value);
+                    VerifyHandler.writeJson(exchange, prime < 0 ? 404 : 200, prime < 0
+                            ? "{\"ok\":false,\"message\":\"Beyond the sieve limit of " + primes.limit() + "\"}"
+                            : "{\"ok\":true,\"value\":" + value + ",\"prime\":" + prime + "}");
+                    return;
+                }
+                case "count":
+                case "":
+                    break;
+                default:
+                    VerifyHandler.writeJson(exchange, 404, "{\"ok\":false,\"message\":\"Unknown operation\"}");
+                    return;
+            }
+
+            Integer from = qp.getInt("from");
+            Integer to = qp.getInt("to");
+            if (from == null || to == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameters: from, to\"}");
+                return;
+            }
+            if (to < from || from < 0 || to >= PrimeBitmap.maxLimit()) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Expected 0 <= from <= to < " + PrimeBitmap.maxLimit() + "\"}");
+                return;
+            }
+            PrimeBitmap primes = PrimeBitmap.covering(to + 1L);
+
+            if ("count".equals(op)) {
+                VerifyHandler.writeJson(exchange, 200, "{\"ok\":true,\"from\":" + from + ",\"to\":" + to + ",\"count\":" + primes.count(from, to) + "}");
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "application/json; charset=utf-8");
+            headers.set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.US_ASCII), 64 * 1024)) {
+                out.write("{\"ok\":true,\"from\":" + from + ",\"to\":" + to + ",\"primes\":[");
+                long count = 0;
+                for (long p = primes.nextPrime(from - 1L); p >= 0 && p <= to; p = primes.nextPrime(p)) {
+                    if (count++ > 0) out.write(',');
+                    out.write(Long.toString(p));
+                }
+                out.write("],\"count\":" + count + "}");
+            }
+        }
+    }
+
+    static final class ExplainHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            Integer data = qp.getInt("data");
+            Integer prime = qp.getInt("prime");
+            if (data == null || prime == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameters: data, prime\"}");
+                return;
+            }
+            if (prime == 0) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Key/modulus must be non-zero\"}");
+                return;
+            }
+
+            Utf8Buffer cacheKey = BufferPool.cacheKey().append("explain:").append((int) data).append(':').append((int) prime);
+            VerifyHandler.writeJson(exchange, 200, ResponseCache.cached(cacheKey, out -> {
+                int modulus = Math.abs(prime);
+                int remainder = Math.floorMod(data, modulus);
+                int quotient = Math.floorDiv(data, modulus);
+                out.append("{\"ok\":true,\"data\":").append((int) data)
+                        .append(",\"prime\":").append((int) prime)
+                        .append(",\"quotient\":").append(quotient)
+                        .append(",\"remainder\":").append(remainder)
+                        .append('}');
+            }));
+        }
+    }
+
+    // Finished response bodies of /api/verify, /api/verify/crt, /api/explain and /api/isPrime, keyed on the
+    // normalized parameters, so a repeated question skips both the computation and the JSON encoding. Keys are
+    // built in the thread's pooled key buffer, so a hit allocates nothing. Entries are split over lock stripes,
+    // each an access-ordered LinkedHashMap that drops its least recently used entry when full.
+    // --cache=N sets the capacity; --cache=0 turns the cache off.
+    static final class ResponseCache {
+        static final int DEFAULT_CAPACITY = 10_000;
+        private static final int MAX_STRIPES = 16;
+
+        private static volatile ResponseCache shared = new ResponseCache(DEFAULT_CAPACITY);
+
+        private final int capacity;
+        private final Stripe[] stripes;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        ResponseCache(int capacity) {
+            this.capacity = capacity;
+            // Only stripe once every stripe can hold a useful number of entries.
+            int count = Math.max(1, Math.min(MAX_STRIPES, Integer.highestOneBit(capacity / 64)));
+            this.stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe((capacity + count - 1) / count);
+            }
+        }
+
+        static void configure(int capacity) {
+            shared = capacity > 0 ? new ResponseCache(capacity) : null;
+        }
+
+        static ResponseCache shared() {
+            return shared;
+        }
+
+        // The body for key in the thread's pooled response buffer: copied from the cache, or written by json and
+        // remembered on a miss. With the cache off json just writes it.
+        static Utf8Buffer cached(Utf8Buffer key, Consumer<Utf8Buffer> json) {
+            Utf8Buffer out = BufferPool.response();
+            ResponseCache cache = shared;
+            if (cache == null) {
+                json.accept(out);
+                return out;
+            }
+            Cached entry = cache.get(key);
+            if (entry != null) {
+                return out.append(entry.body);
+            }
+            json.accept(out);
+            cache.put(key, new Cached(out.toByteArray(), false));
+            return out;
+        }
+
+        // cached for verification bodies: json writes the body and returns whether the data matched. That outcome
+        // is kept next to the cached body and passed to outcome on hits and misses alike.
+        static Utf8Buffer cachedVerification(Utf8Buffer key, Predicate<Utf8Buffer> json, Consumer<Boolean> outcome) {
+            Utf8Buffer out = BufferPool.response();
+            ResponseCache cache = shared;
+            if (cache == null) {
+                outcome.accept(json.test(out));
+                return out;
+            }
+            Cached entry = cache.get(key);
+            if (entry != null) {
+                outcome.accept(entry.match);
+                return out.append(entry.body);
+            }
+            boolean match = json.test(out);
+            cache.put(key, new Cached(out.toByteArray(), match));
+            outcome.accept(match);
+            return out;
+        }
+
+        Cached get(Utf8Buffer key) {
+            Stripe stripe = stripeFor(key);
+            Cached entry;
+            synchronized (stripe) {
+                entry = stripe.get(key);
+            }
+            (entry != null ? hits : misses).increment();
+            return entry;
+        }
+
+        void put(Utf8Buffer key, Cached entry) {
+            Stripe stripe = stripeFor(key);
+            Utf8Buffer stored = key.copy();
+            synchronized (stripe) {
+                stripe.put(stored, entry);
+            }
+        }
+
+        private Stripe stripeFor(Utf8Buffer key) {
+            int h = key.hashCode();
+            return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+        }
+
+        int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        long hits() {
+            return hits.sum();
+        }
+
+        long misses() {
+            return misses.sum();
+        }
+
+        long evictions() {
+            return evictions.sum();
+        }
+
+        String toJson() {
+            return "{\"ok\":true,\"enabled\":true,\"capacity\":" + capacity + ",\"size\":" + size()
+                    + ",\"hits\":" + hits() + ",\"misses\":" + misses() + ",\"evictions\":" + evictions() + "}";
+        }
+
+        static final class Cached {
+            final byte[] body;
+            // Whether the verification matched, for cachedVerification bodies.
+            final boolean match;
+
+            Cached(byte[] body, boolean match) {
+                this.body = body;
+                this.match = match;
+            }
+        }
+
+        @SuppressWarnings("serial") // never serialized
+        private final class Stripe extends LinkedHashMap<Utf8Buffer, Cached> {
+            private final int limit;
+
+            Stripe(int limit) {
+                super(16, 0.75f, true);
+                this.limit = limit;
+            }
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Utf8Buffer, Cached> eldest) {
+                if (size() <= limit) return false;
+                evictions.increment();
+                return true;
+            }
+        }
+    }
+
+    // Optional audit trail of verifications (--audit=DIR). A request thread hands each verification to a ring
+    // buffer with one CAS and a few plain writes; a single writer thread computes the checksums and appends
+    // fixed-width records to memory-mapped segment files, starting a new file when one is full. When the ring is
+    // full the verification goes unrecorded and is counted as dropped, so requests never wait for the disk.
+    // Each segment keeps a sparse index (the timestamp of every INDEX_STRIDE-th record) so time-range queries
+    // start near their first record; timestamps never decrease within the log. Only the newest retain segments
+    // are kept: older ones are unmapped, once no query is reading them, and deleted.
+    static final class AuditLog implements Runnable {
+        // Record: time (epoch ms, 8) | sentData (4) | key (4) | receivedData (4) | algorithm code (1) |
+        // outcome (1, 1 = match) | padding (2) | sender checksum (8) | receiver checksum (8)
+        static final int RECORD_BYTES = 40;
+        // Header: magic (8) | record size (4) | capacity (4) | committed record count (8) | created (8) |
+        // algorithm names: count (4), then length (1) and UTF-8 bytes of each | padding. An algorithm code is a
+        // position in its own segment's names, so records keep their meaning when checksum plugins come and go.
+        static final int HEADER_BYTES = 4096;
+        static final long MAGIC = 0x41554449544C4732L; // "AUDITLG2"
+        static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+        // 64 segments of 40 MiB: the last 67 million verifications.
+        static final int DEFAULT_RETAIN = 64;
+        static final int INDEX_STRIDE = 1024;
+        private static final int RING_SIZE = 1 << 16;
+        private static final int MASK = RING_SIZE - 1;
+
+        private static volatile AuditLog shared;
+
+        private final Path dir;
+        private final int segmentRecords;
+        // 0 keeps every segment.
+        private final int retain;
+        private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+        private final LongAdder dropped = new LongAdder();
+        private final AtomicLong head = new AtomicLong();
+        // Next sequence the writer consumes; producers compare against it to tell a full ring.
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLongArray published = new AtomicLongArray(RING_SIZE);
+        private final long[] times = new long[RING_SIZE];
+        private final int[] sentData = new int[RING_SIZE];
+        private final int[] keys = new int[RING_SIZE];
+        private final int[] receivedData = new int[RING_SIZE];
+        private final byte[] algorithms = new byte[RING_SIZE];
+        private final List<ChecksumAlgorithm> algorithmTable = new ArrayList<>(ChecksumAlgorithms.all());
+        private final String[] algorithmNames = algorithmTable.stream().map(ChecksumAlgorithm::name).toArray(String[]::new);
+        private volatile boolean running = true;
+        private Thread writer;
+
+        AuditLog(Path dir, int segmentRecords, int retain) throws IOException {
+            this.dir = dir;
+            this.segmentRecords = segmentRecords;
+            this.retain = retain;
+            for (int i = 0; i < RING_SIZE; i++) {
+                published.set(i, -1);
+            }
+            Files.createDirectories(dir);
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> list = Files.list(dir)) {
+                list.filter(p -> p.getFileName().toString().matches("audit-\\d{8}\\.seg")).sorted().forEach(files::add);
+            }
+            for (Path file : files) {
+                segments.add(Segment.open(file));
+            }
+            trim();
+        }
+
+        static void start(Path dir, int retain) throws IOException {
+            AuditLog log = new AuditLog(dir, DEFAULT_SEGMENT_RECORDS, retain);
+            log.startWriter();
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close, "audit-close"));
+            shared = log;
+        }
+
+        static AuditLog shared() {
+            return shared;
+        }
+
+        void startWriter() {
+            writer = new Thread(this, "audit-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        // Called on the request path; a no-op unless --audit is set.
+        static void record(ChecksumAlgorithm algorithm, int sentData, int key, int receivedData) {
+            AuditLog log = shared;
+            if (log != null) {
+                log.append(ChecksumAlgorithms.indexOf(algorithm), sentData, key, receivedData);
+            }
+        }
+
+        void append(int algorithm, int sent, int key, int received) {
+            long seq;
+            do {
+                seq = head.get();
+                if (seq - tail.get() >= RING_SIZE) {
+                    dropped.increment();
+                    return;
+                }
+            } while (!head.compareAndSet(seq, seq + 1));
+            int i = (int) seq & MASK;
+            times[i] = System.currentTimeMillis();
+            sentData[i] = sent;
+            keys[i] = key;
+            receivedData[i] = received;
+            algorithms[i] = (byte) algorithm;
+            // Publishing the sequence number releases the plain writes above to the writer.
+            published.lazySet(i, seq);
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                // Nothing more is recorded; appends are counted as dropped from here on.
+                System.err.println("Audit log stopped: " + e);
+            }
+        }
+
+        private void drain() {
+            long next = tail.get();
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            long lastTime = segment == null || segment.count == 0 ? 0 : segment.time(segment.count - 1);
+            // A segment from an earlier run is continued only when it codes the algorithms the same way.
+            if (segment != null && !Arrays.equals(segment.algorithms, algorithmNames)) segment = null;
+            while (true) {
+                int written = 0;
+                while (published.get((int) next & MASK) == next) {
+                    int i = (int) next & MASK;
+                    if (segment == null || segment.count + written == segment.capacity) {
+                        if (segment != null) segment.commit(segment.count + written);
+                        written = 0;
+                        segment = newSegment();
+                    }
+                    lastTime = Math.max(lastTime, times[i]);
+                    segment.write(segment.count + written, lastTime, sentData[i], keys[i], receivedData[i], algorithms[i],
+                            algorithmTable.get(algorithms[i] & 0xFF));
+                    written++;
+                    next++;
+                    if (written == 4096) break;
+                }
+                if (written > 0) {
+                    segment.commit(segment.count + written);
+                    tail.lazySet(next);
+                } else if (!running) {
+                    break;
+                } else {
+                    LockSupport.parkNanos(100_000);
+                }
+            }
+            if (segment != null) segment.buffer.force();
+        }
+
+        private Segment newSegment() {
+            int number = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).number + 1;
+            try {
+                Segment segment = Segment.create(dir.resolve(String.format("audit-%08d.seg", number)), number, segmentRecords,
+                        algorithmNames);
+                segments.add(segment);
+                trim();
+                return segment;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Drops the oldest segments beyond retain.
+        private void trim() {
+            while (retain > 0 && segments.size() > retain) {
+                segments.remove(0).retire();
+            }
+        }
+
+        // Stops after writing everything already handed over.
+        void close() {
+            running = false;
+            if (writer != null) {
+                try {
+                    writer.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        List<Segment> segments() {
+            return segments;
+        }
+
+        long records() {
+            long n = 0;
+            for (Segment s : segments) n += s.count;
+            return n;
+        }
+
+        long dropped() {
+            return dropped.sum();
+        }
+
+        // Releases a mapping now rather than whenever the buffer is collected: Unsafe.invokeCleaner from Java 9,
+        // the buffer's own cleaner before that. Left to the collector when neither can be reached.
+        static void unmap(MappedByteBuffer buffer) {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner;
+                try {
+                    invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                } catch (NoSuchMethodException e) {
+                    Method cleanerOf = buffer.getClass().getMethod("cleaner");
+                    cleanerOf.setAccessible(true);
+                    Object cleaner = cleanerOf.invoke(buffer);
+                    if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    return;
+                }
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // no-op
+            }
+        }
+
+        static final class Segment {
+            final int number;
+            final int capacity;
+            final Path file;
+            // What each algorithm code in this segment's records stands for.
+            final String[] algorithms;
+            final MappedByteBuffer buffer;
+            // index[k] = time of record k * INDEX_STRIDE.
+            private final long[] index;
+            // Records below count are complete; the writer raises it only after writing them.
+            volatile int count;
+            // Queries currently reading the segment, or -1 once it has been unmapped.
+            private final AtomicInteger readers = new AtomicInteger();
+            private volatile boolean retired;
+
+            private Segment(int number, int capacity, Path file, String[] algorithms, MappedByteBuffer buffer) {
+                this.number = number;
+                this.capacity = capacity;
+                this.file = file;
+                this.algorithms = algorithms;
+                this.buffer = buffer;
+                this.index = new long[(capacity + INDEX_STRIDE - 1) / INDEX_STRIDE];
+            }
+
+            static Segment create(Path file, int number, int capacity, String[] algorithms) throws IOException {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+                    buffer.putLong(0, MAGIC).putInt(8, RECORD_BYTES).putInt(12, capacity).putLong(16, 0)
+                            .putLong(24, System.currentTimeMillis()).putInt(32, algorithms.length);
+                    int at = 36;
+                    for (String name : algorithms) {
+                        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                        if (algorithms.length > 256 || bytes.length > 255 || at + 1 + bytes.length > HEADER_BYTES) {
+                            throw new IOException("Too many checksum algorithms to audit");
+                        }
+                        buffer.put(at, (byte) bytes.length);
+                        for (int i = 0; i < bytes.length; i++) buffer.put(at + 1 + i, bytes[i]);
+                        at += 1 + bytes.length;
+                    }
+                    return new Segment(number, capacity, file, algorithms.clone(), buffer);
+                }
+            }
+
+            static Segment open(Path file) throws IOException {
+                String name = file.getFileName().toString();
+                int number = Integer.parseInt(name.substring("audit-".length(), name.length() - ".seg".length()));
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                    if (channel.size() < HEADER_BYTES || buffer.getLong(0) != MAGIC || buffer.getInt(8) != RECORD_BYTES
+                            || channel.size() < HEADER_BYTES + (long) buffer.getInt(12) * RECORD_BYTES) {
+                        throw new IOException(file + " is not an audit segment");
+                    }
+                    String[] algorithms = new String[buffer.getInt(32)];
+                    int at = 36;
+                    for (int a = 0; a < algorithms.length; a++) {
+                        byte[] bytes = new byte[buffer.get(at) & 0xFF];
+                        for (int i = 0; i < bytes.length; i++) bytes[i] = buffer.get(at + 1 + i);
+                        algorithms[a] = new String(bytes, StandardCharsets.UTF_8);
+                        at += 1 + bytes.length;
+                    }
+                    Segment segment = new Segment(number, buffer.getInt(12), file, algorithms, buffer);
+                    int count = (int) Math.min(buffer.getLong(16), segment.capacity);
+                    for (int k = 0; k * INDEX_STRIDE < count; k++) {
+                        segment.index[k] = segment.time(k * INDEX_STRIDE);
+                    }
+                    segment.count = count;
+                    return segment;
+                }
+            }
+
+            void write(int record, long time, int sent, int key, int received, int algorithm, ChecksumAlgorithm algo) {
+                long senderChecksum = algo.checksum(sent, key);
+                long receiverChecksum = algo.checksum(received, key);
+                int at = HEADER_BYTES + record * RECORD_BYTES;
+                buffer.putLong(at, time).putInt(at + 8, sent).putInt(at + 12, key).putInt(at + 16, received)
+                        .put(at + 20, (byte) algorithm).put(at + 21, (byte) (senderChecksum == receiverChecksum ? 1 : 0))
+                        .putLong(at + 24, senderChecksum).putLong(at + 32, receiverChecksum);
+                if (record % INDEX_STRIDE == 0) {
+                    index[record / INDEX_STRIDE] = time;
+                }
+            }
+
+            void commit(int newCount) {
+                buffer.putLong(16, newCount);
+                count = newCount;
+            }
+
+            // Queries read a segment between acquire and release; false when it is already gone.
+            boolean acquire() {
+                for (int n; (n = readers.get()) >= 0; ) {
+                    if (readers.compareAndSet(n, n + 1)) return true;
+                }
+                return false;
+            }
+
+            void release() {
+                if (readers.decrementAndGet() == 0 && retired) unmapIfIdle();
+            }
+
+            // Unmaps and deletes the segment as soon as no query is reading it.
+            void retire() {
+                retired = true;
+                unmapIfIdle();
+            }
+
+            private void unmapIfIdle() {
+                if (!readers.compareAndSet(0, -1)) return;
+                unmap(buffer);
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Could not delete audit segment " + file + ": " + e.getMessage());
+                }
+            }
+
+            // The first record with time >= from, or count when there is none.
+            int seek(long from) {
+                int n = count;
+                if (n == 0 || time(n - 1) < from) return n;
+                // Last indexed record before from, then a short linear scan.
+                int lo = 0;
+                int hi = (n - 1) / INDEX_STRIDE;
+                while (lo < hi) {
+                    int mid = (lo + hi + 1) >>> 1;
+                    if (index[mid] < from) lo = mid; else hi = mid - 1;
+                }
+                int i = lo * INDEX_STRIDE;
+                while (i < n && time(i) < from) i++;
+                return i;
+            }
+
+            long time(int record) {
+                return buffer.getLong(HEADER_BYTES + record * RECORD_BYTES);
+            }
+
+            int sentData(int record) {
+                return buffer.getInt(HEADER_BYTES + record * RECORD_BYTES + 8);
+            }
+
+            int key(int record) {
+                return buffer.getInt(HEADER_BYTES + record * RECORD_BYTES + 12);
+            }
+
+            int receivedData(int record) {
+                return buffer.getInt(HEADER_BYTES + record * RECORD_BYTES + 16);
+            }
+
+            // The name of the record's algorithm, or null when the header does not list its code.
+            String algorithm(int record) {
+                int code = buffer.get(HEADER_BYTES + record * RECORD_BYTES + 20) & 0xFF;
+                return code < algorithms.length ? algorithms[code] : null;
+            }
+
+            boolean ok(int record) {
+                return buffer.get(HEADER_BYTES + record * RECORD_BYTES + 21) == 1;
+            }
+
+            long senderChecksum(int record) {
+                return buffer.getLong(HEADER_BYTES + record * RECORD_BYTES + 24);
+            }
+
+            long receiverChecksum(int record) {
+                return buffer.getLong(HEADER_BYTES + record * RECORD_BYTES + 32);
+            }
+        }
+    }
+
+    // GET /api/audit?from=&to=[&outcome=ok|mismatch][&limit=N]   audited verifications in [from, to]
+    // GET /api/audit?from=&to=&bucket=ms[&outcome=...]            how many (and how many mismatched) per time bucket
+    // Times are epoch milliseconds or ISO-8601 instants; a missing bound is open. Totals cover every record in the
+    // range, also beyond limit.
+    static final class AuditHandler implements HttpHandler {
+        static final int DEFAULT_LIMIT = 1000;
+        static final int MAX_LIMIT = 100_000;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+            AuditLog log = AuditLog.shared();
+            if (log == null) {
+                VerifyHandler.writeJson(exchange, 404, "{\"ok\":false,\"message\":\"The audit log is off; start the server with --audit=DIR\"}");
+                return;
+            }
+
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            Long from = parseTime(qp.get("from"), 0);
+            Long to = parseTime(qp.get("to"), Long.MAX_VALUE);
+            if (from == null || to == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"from and to must be epoch milliseconds or ISO-8601 instants\"}");
+                return;
+            }
+            String outcomeName = qp.get("outcome");
+            int outcome;
+            if (outcomeName == null || outcomeName.equals("all")) {
+                outcome = -1;
+            } else if (outcomeName.equals("ok")) {
+                outcome = 1;
+            } else if (outcomeName.equals("mismatch")) {
+                outcome = 0;
+            } else {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"outcome must be all, ok or mismatch\"}");
+                return;
+            }
+            Integer limitParam = qp.getInt("limit");
+            int limit = limitParam == null ? DEFAULT_LIMIT : Math.max(0, Math.min(MAX_LIMIT, limitParam));
+            Long bucket = qp.get("bucket") == null ? null : safeParseLong(qp.get("bucket"));
+            if (qp.get("bucket") != null && (bucket == null || bucket <= 0)) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"bucket must be a positive number of milliseconds\"}");
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", "application/json; charset=utf-8");
+            headers.set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, 0);
+            Utf8Buffer out = BufferPool.response();
+            try (OutputStream os = exchange.getResponseBody()) {
+                out.append("{\"ok\":true,\"from\":").append(from).append(",\"to\":").append(to);
+                if (bucket != null) {
+                    out.append(",\"bucket\":").append(bucket).append(",\"buckets\":[");
+                } else {
+                    out.append(",\"records\":[");
+                }
+
+                long total = 0;
+                long mismatches = 0;
+                long listed = 0;
+                long bucketStart = 0;
+                long bucketTotal = 0;
+                long bucketMismatches = 0;
+                long buckets = 0;
+                boolean pastEnd = false;
+                for (AuditLog.Segment segment : log.segments()) {
+                    // Retired by the writer since the list was read.
+                    if (!segment.acquire()) continue;
+                    try {
+                        int n = segment.count;
+                        if (n == 0) continue;
+                        if (segment.time(0) > to) break;
+                        for (int i = segment.seek(from); i < n; i++) {
+                            long time = segment.time(i);
+                            if (time > to) {
+                                pastEnd = true;
+                                break;
+                            }
+                            boolean ok = segment.ok(i);
+                            if (outcome >= 0 && ok != (outcome == 1)) continue;
+                            total++;
+                            if (!ok) mismatches++;
+                            if (bucket != null) {
+                                long start = Math.floorDiv(time, bucket) * bucket;
+                                if (bucketTotal > 0 && start != bucketStart) {
+                                    appendBucket(out, bucketStart, bucketTotal, bucketMismatches, buckets++ > 0);
+                                    bucketTotal = 0;
+                                    bucketMismatches = 0;
+                                }
+                                bucketStart = start;
+                                bucketTotal++;
+                                if (!ok) bucketMismatches++;
+                            } else if (listed < limit) {
+                                if (listed++ > 0) out.append(',');
+                                appendRecord(out, segment, i);
+                            }
+                            if (out.length() >= 8192) {
+                                out.writeTo(os);
+                                out.reset();
+                            }
+                        }
+                    } finally {
+                        segment.release();
+                    }
+                    if (pastEnd) break;
+                }
+                if (bucketTotal > 0) {
+                    appendBucket(out, bucketStart, bucketTotal, bucketMismatches, buckets > 0);
+                }
+
+                out.append("],\"total\":").append(total).append(",\"mismatches\":").append(mismatches);
+                if (bucket == null) out.append(",\"listed\":").append(listed);
+                out.append(",\"dropped\":").append(log.dropped()).append('}');
+                out.writeTo(os);
+            }
+        }
+
+        private static void appendBucket(Utf8Buffer out, long start, long total, long mismatches, boolean comma) {
+            if (comma) out.append(',');
+            out.append("{\"start\":").append(start).append(",\"total\":").append(total)
+                    .append(",\"mismatches\":").append(mismatches).append('}');
+        }
+
+        private static void appendRecord(Utf8Buffer out, AuditLog.Segment segment, int i) {
+            String algorithm = segment.algorithm(i);
+            out.append("{\"time\":").append(segment.time(i))
+                    .append(",\"algo\":\"").append(algorithm == null ? "unknown" : algorithm)
+                    .append("\",\"sentData\":").append(segment.sentData(i))
+                    .append(",\"prime\":").append(segment.key(i))
+                    .append(",\"receivedData\":").append(segment.receivedData(i))
+                    .append(",\"senderChecksum\":").appendUnsigned(segment.senderChecksum(i))
+                    .append(",\"receiverChecksum\":").appendUnsigned(segment.receiverChecksum(i))
+                    .append(",\"ok\":").append(segment.ok(i)).append('}');
+        }
+
+        // Epoch milliseconds or an ISO-8601 instant; missing when text is null, null when malformed.
+        private static Long parseTime(String text, long missing) {
+            if (text == null || text.isEmpty()) return missing;
+            Long millis = safeParseLong(text);
+            if (millis != null) return millis;
+            try {
+                return Instant.parse(text).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+
+    // Monte Carlo estimate of how often a key detects each kind of corruption. Trials run in blocks of BLOCK
+    // spread over a pool; every worker draws from its own split of one SplittableRandom, fills a block with
+    // random sent values and their corrupted copies and compares checksums with the bulk verifyAll. The counters
+    // can be read while it runs. Trials whose corruption happened to leave the value unchanged are not counted.
+    static final class CorruptionSimulator {
+        static final int BLOCK = 4096;
+        static final String[] MODE_NAMES = {"delta", "digit", "random"};
+        static final int DELTA = 0;
+        static final int DIGIT = 1;
+        static final int RANDOM = 2;
+        // Keeps 2 * range + 1 changes within nextInt.
+        static final int MAX_RANGE = (1 << 30) - 1;
+        private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+                100_000_000L, 1_000_000_000L, 10_000_000_000L};
+
+        final int key;
+        final int[] modes;
+        final long trials;
+        final int delta;
+        final int range;
+        private final PreparedModulus modulus;
+        private final AtomicLong nextBlock = new AtomicLong();
+        private final long blocks;
+        // Per entry of modes.
+        private final LongAdder[] done;
+        private final LongAdder[] corrupted;
+        private final LongAdder[] detected;
+        private volatile boolean cancelled;
+        private CountDownLatch finished;
+        private AtomicInteger running;
+        private long startNanos;
+        private volatile long endNanos;
+
+        // trials per mode; delta is the fixed change of "delta", range bounds the change of "random" (both sides).
+        CorruptionSimulator(int key, int[] modes, long trials, int delta, int range) {
+            this.key = key;
+            this.modes = modes.clone();
+            this.trials = trials;
+            this.delta = delta;
+            this.range = range;
+            this.modulus = PreparedModulus.of(key);
+            this.blocks = (trials + BLOCK - 1) / BLOCK * modes.length;
+            this.done = newAdders(modes.length);
+            this.corrupted = newAdders(modes.length);
+            this.detected = newAdders(modes.length);
+        }
+
+        private static LongAdder[] newAdders(int n) {
+            LongAdder[] adders = new LongAdder[n];
+            for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+            return adders;
+        }
+
+        // Mode indexes for a comma-separated list of names, or null when one is unknown or the list is empty.
+        static int[] parseModes(String text) {
+            String[] names = text.split(",");
+            int[] modes = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                modes[i] = Arrays.asList(MODE_NAMES).indexOf(names[i].trim());
+                if (modes[i] < 0) return null;
+            }
+            return modes.length == 0 ? null : modes;
+        }
+
+        void start(Executor pool, int workers, long seed) {
+            startNanos = System.nanoTime();
+            finished = new CountDownLatch(workers);
+            running = new AtomicInteger(workers);
+            SplittableRandom root = new SplittableRandom(seed);
+            for (int w = 0; w < workers; w++) {
+                final SplittableRandom random = root.split();
+                pool.execute(() -> {
+                    try {
+                        work(random);
+                    } finally {
+                        if (running.decrementAndGet() == 0) endNanos = System.nanoTime();
+                        finished.countDown();
+                    }
+                });
+            }
+        }
+
+        // True once every worker has finished.
+        boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        // Waits for the workers of a started simulation, which stop within a block once cancelled.
+        void join() {
+            if (finished == null) return;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+
+        long elapsedNanos() {
+            return (finished.getCount() == 0 ? endNanos : System.nanoTime()) - startNanos;
+        }
+
+        private void work(SplittableRandom random) {
+            int[] sent = new int[BLOCK];
+            int[] received = new int[BLOCK];
+            BitSet mismatches = new BitSet(BLOCK);
+            // Consecutive blocks go to different modes, so partial results cover all of them.
+            for (long b; !cancelled && (b = nextBlock.getAndIncrement()) < blocks; ) {
+                int slot = (int) (b % modes.length);
+                int mode = modes[slot];
+                int n = (int) Math.min(BLOCK, trials - b / modes.length * BLOCK);
+                int unchanged = 0;
+                for (int i = 0; i < n; i++) {
+                    int value = random.nextInt();
+                    int changed = corrupt(mode, value, random);
+                    sent[i] = value;
+                    received[i] = changed;
+                    if (changed == value) unchanged++;
+                }
+                int mismatched = modulus.verifyAll(sent, received, n, mismatches);
+                done[slot].add(n);
+                corrupted[slot].add(n - unchanged);
+                detected[slot].add(mismatched);
+            }
+        }
+
+        private int corrupt(int mode, int value, SplittableRandom random) {
+            switch (mode) {
+                case DELTA:
+                    return value + delta;
+                case DIGIT:
+                    return changeDigit(value, random);
+                default:
+                    // Uniform over [-range, range] without 0.
+                    int d = random.nextInt(2 * range) - range;
+                    return value + (d >= 0 ? d + 1 : d);
+            }
+        }
+
+        // Replaces one decimal digit of |value| by a different one and keeps the sign; draws again when the
+        // result would not fit an int.
+        static int changeDigit(int value, SplittableRandom random) {
+            long magnitude = Math.abs((long) value);
+            int digits = 1;
+            while (digits < 10 && magnitude >= POW10[digits]) digits++;
+            while (true) {
+                int position = random.nextInt(digits);
+                int old = (int) (magnitude / POW10[position] % 10);
+                int digit = random.nextInt(9);
+                if (digit >= old) digit++;
+                long changed = magnitude + (digit - old) * POW10[position];
+                if (changed <= Integer.MAX_VALUE) return value < 0 ? (int) -changed : (int) changed;
+            }
+        }
+
+        // {"mode":...,"trials":...,"corrupted":...,"detected":...,"rate":...,"low":...,"high":...} per mode, with
+        // the 95% Wilson score interval of the detection rate.
+        void modesJson(Utf8Buffer out) {
+            out.append('[');
+            for (int i = 0; i < modes.length; i++) {
+                long n = corrupted[i].sum();
+                long hits = detected[i].sum();
+                if (i > 0) out.append(',');
+                out.append("{\"mode\":\"").append(MODE_NAMES[modes[i]])
+                        .append("\",\"trials\":").append(done[i].sum())
+                        .append(",\"corrupted\":").append(n)
+                        .append(",\"detected\":").append(hits)
+                        .append(",\"rate\":");
+                if (n == 0) {
+                    out.append("null,\"low\":null,\"high\":null}");
+                    continue;
+                }
+                double p = (double) hits / n;
+                double z = 1.959963984540054;
+                double centre = (p + z * z / (2 * n)) / (1 + z * z / n);
+                double half = z / (1 + z * z / n) * Math.sqrt(p * (1 - p) / n + z * z / (4.0 * n * n));
+                out.appendFraction(p)
+                        .append(",\"low\":").appendFraction(Math.max(0, centre - half))
+                        .append(",\"high\":").appendFraction(Math.min(1, centre + half))
+                        .append('}');
+            }
+            out.append(']');
+        }
+    }
+
+    // GET /api/simulate?prime=..&trials=..[&modes=delta,digit,random][&delta=1][&range=1000][&seed=..]
+    // Runs the CorruptionSimulator on its own pool and streams newline-delimited JSON: a progress line about every
+    // PROGRESS_MILLIS, then a summary line. Stops the simulation when the client goes away. One simulation runs at
+    // a time; another request meanwhile gets a 503, so simulations never crowd out the request executor or the
+    // common ForkJoinPool the payload checksum and key ranking use.
+    static final class SimulateHandler implements HttpHandler {
+        static final long DEFAULT_TRIALS = 1_000_000;
+        static final long MAX_TRIALS = 100_000_000;
+        static final long PROGRESS_MILLIS = 250;
+        private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+        private static final ExecutorService POOL = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "simulate");
+            t.setDaemon(true);
+            return t;
+        });
+        private static final AtomicBoolean RUNNING = new AtomicBoolean();
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            Integer prime = qp.getInt("prime");
+            if (prime == null || prime == 0) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing or zero parameter: prime\"}");
+                return;
+            }
+            Long trials = qp.get("trials") == null ? (Long) DEFAULT_TRIALS : safeParseLong(qp.get("trials"));
+            if (trials == null || trials < 1 || trials > MAX_TRIALS) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"trials must be between 1 and " + MAX_TRIALS + "\"}");
+                return;
+            }
+            int[] modes = qp.get("modes") == null ? new int[]{CorruptionSimulator.DELTA, CorruptionSimulator.DIGIT, CorruptionSimulator.RANDOM}
+                    : CorruptionSimulator.parseModes(qp.get("modes"));
+            if (modes == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"modes must list delta, digit or random\"}");
+                return;
+            }
+            Integer delta = qp.get("delta") == null ? (Integer) 1 : qp.getInt("delta");
+            if (delta == null || delta == 0) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"delta must be a non-zero integer\"}");
+                return;
+            }
+            Integer range = qp.get("range") == null ? (Integer) 1000 : qp.getInt("range");
+            if (range == null || range < 1 || range > CorruptionSimulator.MAX_RANGE) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"range must be between 1 and " + CorruptionSimulator.MAX_RANGE + "\"}");
+                return;
+            }
+            Long seed = qp.get("seed") == null ? (Long) System.nanoTime() : safeParseLong(qp.get("seed"));
+            if (seed == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"seed must be an integer\"}");
+                return;
+            }
+
+            if (!RUNNING.compareAndSet(false, true)) {
+                VerifyHandler.writeJson(exchange, 503, "{\"ok\":false,\"message\":\"Another simulation is running, try again\"}");
+                return;
+            }
+            CorruptionSimulator simulation = new CorruptionSimulator(prime, modes, trials, delta, range);
+            try {
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Content-Type", "application/x-ndjson; charset=utf-8");
+                headers.set("Cache-Control", "no-store");
+                exchange.sendResponseHeaders(200, 0);
+                simulation.start(POOL, WORKERS, seed);
+                stream(exchange, simulation, prime, trials * modes.length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // The next simulation gets the pool only once these workers are gone.
+                simulation.cancel();
+                simulation.join();
+                RUNNING.set(false);
+            }
+        }
+
+        private static void stream(HttpExchange exchange, CorruptionSimulator simulation, int prime, long total)
+                throws IOException, InterruptedException {
+            Utf8Buffer out = BufferPool.response();
+            try (OutputStream os = exchange.getResponseBody()) {
+                boolean complete;
+                do {
+                    complete = simulation.await(PROGRESS_MILLIS, TimeUnit.MILLISECONDS);
+                    long elapsed = simulation.elapsedNanos();
+                    out.reset();
+                    out.append(complete ? "{\"summary\":true,\"prime\":" : "{\"progress\":true,\"prime\":").append(prime)
+                            .append(",\"elapsedMs\":").append(elapsed / 1_000_000)
+                            .append(",\"modes\":");
+                    simulation.modesJson(out);
+                    if (complete) {
+                        out.append(",\"trialsPerSecond\":").append(elapsed == 0 ? total : (long) (total * 1e9 / elapsed));
+                    }
+                    out.append("}\n");
+                    out.writeTo(os);
+                    os.flush();
+                } while (!complete);
+            }
+        }
+    }
+
+    // Ranks candidate keys by exactly how many errors of each model they miss. The mod checksum misses an error
+    // precisely when the change it makes is a multiple of the key (int wrap-around aside), so every model is a
+    // list of changes, each weighted by how many errors produce it, and a key misses the weight of those it
+    // divides. Ranges are scanned in parallel chunks; rankings are cached per (range, maxDelta, models).
+    static final class KeyAdvisor {
+        static final String[] MODEL_NAMES = {"delta", "digit", "transposition", "bit"};
+        static final int DELTA = 0;
+        static final int DIGIT = 1;
+        static final int TRANSPOSITION = 2;
+        static final int BIT = 3;
+        static final int MAX_RANGE = 1 << 22;
+        static final int MAX_RESULTS = 1000;
+        // Changes of an int never exceed 2^32 in size, and 2 * MAX_DELTA error counts stay far from overflow.
+        static final long MAX_DELTA = 1L << 32;
+        private static final int CACHE_CAPACITY = 64;
+        private static final int CHUNK = 16_384;
+
+        // Changes and their weights for digit (one of the 10 decimal digits of an int replaced: 900 errors),
+        // transposition (two neighbouring different digits swapped: 810) and bit (one of 32 bits flipped).
+        // delta (every change with 0 < |change| <= maxDelta) is counted directly.
+        private static final long[][] CHANGES = new long[4][];
+        private static final long[][] WEIGHTS = new long[4][];
+
+        static {
+            long[] changes = new long[90];
+            long[] weights = new long[90];
+            long[] swapChanges = new long[81];
+            long[] swapWeights = new long[81];
+            long power = 1;
+            for (int position = 0; position < 10; position++, power *= 10) {
+                for (int t = 1; t <= 9; t++) {
+                    // 2 * (10 - t) ordered digit pairs differ by t.
+                    changes[position * 9 + t - 1] = t * power;
+                    weights[position * 9 + t - 1] = 2 * (10 - t);
+                    if (position < 9) {
+                        // Swapping digits a, b at positions p+1, p changes the value by (b - a) * 9 * 10^p.
+                        swapChanges[position * 9 + t - 1] = 9 * t * power;
+                        swapWeights[position * 9 + t - 1] = 2 * (10 - t);
+                    }
+                }
+            }
+            long[] bitChanges = new long[32];
+            long[] bitWeights = new long[32];
+            for (int bit = 0; bit < 32; bit++) {
+                bitChanges[bit] = 1L << bit;
+                bitWeights[bit] = 1;
+            }
+            CHANGES[DIGIT] = changes;
+            WEIGHTS[DIGIT] = weights;
+            CHANGES[TRANSPOSITION] = swapChanges;
+            WEIGHTS[TRANSPOSITION] = swapWeights;
+            CHANGES[BIT] = bitChanges;
+            WEIGHTS[BIT] = bitWeights;
+        }
+
+        private static final Map<String, Ranking> CACHE = new LinkedHashMap<String, Ranking>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ranking> eldest) {
+                return size() > CACHE_CAPACITY;
+            }
+        };
+
+        static final class Candidate {
+            final int key;
+            final long[] missed;
+            final double score;
+            final double worst;
+            final boolean prime;
+
+            Candidate(int key, long[] missed, double score, double worst, boolean prime) {
+                this.key = key;
+                this.missed = missed;
+                this.score = score;
+                this.worst = worst;
+                this.prime = prime;
+            }
+        }
+
+        // Best first: mean coverage over the models, then the worst model's coverage, then primes, then smaller keys.
+        static final Comparator<Candidate> ORDER = Comparator.comparingDouble((Candidate c) -> -c.score)
+                .thenComparingDouble(c -> -c.worst)
+                .thenComparing(c -> !c.prime)
+                .thenComparingInt(c -> c.key);
+
+        static final class Ranking {
+            final int from;
+            final int to;
+            final long maxDelta;
+            final int[] models;
+            final long[] errors;
+            // The best min(MAX_RESULTS, keys) keys, best first.
+            final List<Candidate> best;
+            final long nanos;
+
+            Ranking(int from, int to, long maxDelta, int[] models, long[] errors, List<Candidate> best, long nanos) {
+                this.from = from;
+                this.to = to;
+                this.maxDelta = maxDelta;
+                this.models = models;
+                this.errors = errors;
+                this.best = best;
+                this.nanos = nanos;
+            }
+
+            // {"ok":true,...,"keys":[...]} with the first limit keys.
+            void toJson(Utf8Buffer out, int limit, boolean cached) {
+                out.append("{\"ok\":true,\"from\":").append(from).append(",\"to\":").append(to)
+                        .append(",\"maxDelta\":").append(maxDelta).append(",\"models\":[");
+                for (int m = 0; m < models.length; m++) {
+                    if (m > 0) out.append(',');
+                    out.append("{\"model\":\"").append(MODEL_NAMES[models[m]]).append("\",\"errors\":").append(errors[m]).append('}');
+                }
+                out.append("],\"keys\":[");
+                for (int i = 0; i < Math.min(limit, best.size()); i++) {
+                    Candidate c = best.get(i);
+                    if (i > 0) out.append(',');
+                    out.append("{\"key\":").append(c.key).append(",\"prime\":").append(c.prime)
+                            .append(",\"score\":").appendFraction(c.score).append(",\"models\":[");
+                    for (int m = 0; m < models.length; m++) {
+                        if (m > 0) out.append(',');
+                        out.append("{\"model\":\"").append(MODEL_NAMES[models[m]])
+                                .append("\",\"missed\":").append(c.missed[m])
+                                .append(",\"coverage\":").appendFraction(1 - (double) c.missed[m] / errors[m]).append('}');
+                    }
+                    out.append("]}");
+                }
+                out.append("],\"scanned\":").append(to - (long) from + 1)
+                        .append(",\"elapsedMs\":").append(nanos / 1_000_000)
+                        .append(",\"cached\":").append(cached).append('}');
+            }
+        }
+
+        // Model indexes for a comma-separated list of names, or null when one is unknown or the list is empty.
+        static int[] parseModels(String text) {
+            String[] names = text.split(",");
+            int[] models = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                models[i] = Arrays.asList(MODEL_NAMES).indexOf(names[i].trim());
+                if (models[i] < 0) return null;
+            }
+            return models.length == 0 ? null : models;
+        }
+
+        // Why a request cannot be ranked, or null when it can.
+        static String check(int from, int to, long maxDelta) {
+            if (from < 2 || to < from) return "Expected 2 <= from <= to";
+            if (to - (long) from >= MAX_RANGE) return "At most " + MAX_RANGE + " keys per ranking";
+            if (maxDelta < 1 || maxDelta > MAX_DELTA) return "maxDelta must be between 1 and " + MAX_DELTA;
+            return null;
+        }
+
+        static Ranking cachedRank(int from, int to, long maxDelta, int[] models) {
+            String key = from + ":" + to + ":" + maxDelta + ":" + Arrays.toString(models);
+            synchronized (CACHE) {
+                Ranking ranking = CACHE.get(key);
+                if (ranking != null) return ranking;
+            }
+            Ranking ranking = rank(from, to, maxDelta, models);
+            synchronized (CACHE) {
+                CACHE.put(key, ranking);
+            }
+            return ranking;
+        }
+
+        static boolean isCached(int from, int to, long maxDelta, int[] models) {
+            synchronized (CACHE) {
+                return CACHE.containsKey(from + ":" + to + ":" + maxDelta + ":" + Arrays.toString(models));
+            }
+        }
+
+        // Scores every key in [from, to] on the common ForkJoinPool and keeps the best MAX_RESULTS.
+        static Ranking rank(int from, int to, long maxDelta, int[] models) {
+            long start = System.nanoTime();
+            long[] errors = new long[models.length];
+            for (int m = 0; m < models.length; m++) {
+                errors[m] = models[m] == DELTA ? 2 * maxDelta : LongStream.of(WEIGHTS[models[m]]).sum();
+            }
+            long keys = to - (long) from + 1;
+            int chunks = (int) ((keys + CHUNK - 1) / CHUNK);
+            List<Candidate> best = IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> bestOf(from + (long) c * CHUNK, Math.min(to, from + (long) c * CHUNK + CHUNK - 1), maxDelta, models, errors))
+                    .flatMap(List::stream)
+                    .sorted(ORDER)
+                    .limit(MAX_RESULTS)
+                    .collect(Collectors.toList());
+            return new Ranking(from, to, maxDelta, models.clone(), errors, best, System.nanoTime() - start);
+        }
+
+        // The best MAX_RESULTS keys of [lo, hi]; only keys that make it into the heap allocate.
+        private static List<Candidate> bestOf(long lo, long hi, long maxDelta, int[] models, long[] errors) {
+            PriorityQueue<Candidate> heap = new PriorityQueue<>(MAX_RESULTS + 1, ORDER.reversed());
+            long[] missed = new long[models.length];
+            for (long k = lo; k <= hi; k++) {
+                double total = 0;
+                double worst = 1;
+                for (int m = 0; m < models.length; m++) {
+                    missed[m] = missed(models[m], k, maxDelta);
+                    double coverage = 1 - (double) missed[m] / errors[m];
+                    total += coverage;
+                    worst = Math.min(worst, coverage);
+                }
+                double score = total / models.length;
+                boolean prime;
+                if (heap.size() == MAX_RESULTS) {
+                    Candidate last = heap.peek();
+                    if (score != last.score || worst != last.worst) {
+                        if (score < last.score || (score == last.score && worst < last.worst)) continue;
+                        prime = isPrime((int) k);
+                    } else {
+                        // A tie with a larger key than everything kept so far only wins by being prime.
+                        if (last.prime || !(prime = isPrime((int) k))) continue;
+                    }
+                } else {
+                    prime = isPrime((int) k);
+                }
+                heap.add(new Candidate((int) k, missed.clone(), score, worst, prime));
+                if (heap.size() > MAX_RESULTS) heap.poll();
+            }
+            return new ArrayList<>(heap);
+        }
+
+        // How many errors of model the key k misses.
+        static long missed(int model, long k, long maxDelta) {
+            if (model == DELTA) {
+                // Changes of +-k, +-2k, ... up to maxDelta.
+                return 2 * (maxDelta / k);
+            }
+            // Every change of the other models is c * 2^i * 5^j with c <= 81, so a key whose part coprime to 10 is
+            // larger divides none of them. That settles most keys without a division per change.
+            long rest = k >>> Long.numberOfTrailingZeros(k);
+            while (rest % 5 == 0) rest /= 5;
+            if (rest > 81) return 0;
+            long[] changes = CHANGES[model];
+            long[] weights = WEIGHTS[model];
+            long missed = 0;
+            for (int i = 0; i < changes.length; i++) {
+                if (changes[i] % k == 0) missed += weights[i];
+            }
+            return missed;
+        }
+    }
+
+    // GET /api/recommend?from=2&to=1000[&maxDelta=1000][&models=delta,digit,transposition,bit][&limit=10]
+    static final class RecommendHandler implements HttpHandler {
+        static final int DEFAULT_LIMIT = 10;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                VerifyHandler.writeJson(exchange, 405, "{\"ok\":false,\"message\":\"Method not allowed\"}");
+                return;
+            }
+            QueryParams qp = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+            Integer from = qp.getInt("from");
+            Integer to = qp.getInt("to");
+            if (from == null || to == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"Missing parameters: from, to\"}");
+                return;
+            }
+            Long maxDelta = qp.get("maxDelta") == null ? (Long) 1000L : safeParseLong(qp.get("maxDelta"));
+            if (maxDelta == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"maxDelta must be an integer\"}");
+                return;
+            }
+            String problem = KeyAdvisor.check(from, to, maxDelta);
+            if (problem != null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"" + problem + "\"}");
+                return;
+            }
+            int[] models = qp.get("models") == null ? new int[]{KeyAdvisor.DELTA, KeyAdvisor.DIGIT, KeyAdvisor.TRANSPOSITION, KeyAdvisor.BIT}
+                    : KeyAdvisor.parseModels(qp.get("models"));
+            if (models == null) {
+                VerifyHandler.writeJson(exchange, 400, "{\"ok\":false,\"message\":\"models must list delta, digit, transposition or bit\"}");
+                return;
+            }
+            Integer limitParam = qp.getInt("limit");
+            int limit = limitParam == null ? DEFAULT_LIMIT : Math.max(1, Math.min(KeyAdvisor.MAX_RESULTS, limitParam));
+
+            boolean cached = KeyAdvisor.isCached(from, to, maxDelta, models);
+            KeyAdvisor.Ranking ranking = KeyAdvisor.cachedRank(from, to, maxDelta, models);
+            Utf8Buffer out = BufferPool.response();
+            ranking.toJson(out, limit, cached);
+            VerifyHandler.writeJson(exchange, 200, out);
+        }
+    }
+
+    // GET /api/cache - response cache counters.
+    static final class CacheStatsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            ResponseCache cache = ResponseCache.shared();
+            VerifyHandler.writeJson(exchange, 200, cache != null ? cache.toJson() : "{\"ok\":true,\"enabled\":false}");
+        }
+    }
+
+    // Server-wide counters and per-route latency histograms, scraped at /metrics in the Prometheus text format.
+    // Recording is a few uncontended atomic adds; the scrape reads the same atomics and never locks them.
+    static final class Metrics {
+        static final LongAdder MATCHES = new LongAdder();
+        static final LongAdder MISMATCHES = new LongAdder();
+        static final LongAdder PRIMALITY_SIEVE = new LongAdder();
+        static final LongAdder PRIMALITY_TRIAL = new LongAdder();
+        static final LongAdder PRIMALITY_MILLER_RABIN = new LongAdder();
+        static final LongAdder PRIMALITY_BIG = new LongAdder();
+
+        private static final String PREFIX = "errordetection_";
+        private static final List<Route> ROUTES = new CopyOnWriteArrayList<>();
+
+        static void recordOutcome(boolean match) {
+            (match ? MATCHES : MISMATCHES).increment();
+        }
+
+        static void recordOutcomes(long matches, long mismatches) {
+            if (matches > 0) MATCHES.add(matches);
+            if (mismatches > 0) MISMATCHES.add(mismatches);
+        }
+
+        // Times every exchange on handler and counts its status and body bytes under the route label.
+        static HttpHandler instrument(String path, HttpHandler handler) {
+            Route route = new Route(path);
+            ROUTES.add(route);
+            return exchange -> {
+                long start = System.nanoTime();
+                CountingInputStream in = new CountingInputStream(exchange.getRequestBody());
+                CountingOutputStream out = new CountingOutputStream(exchange.getResponseBody());
+                exchange.setStreams(in, out);
+                boolean failed = true;
+                try {
+                    handler.handle(exchange);
+                    failed = false;
+                } finally {
+                    int status = exchange.getResponseCode();
+                    route.record(status < 0 && failed ? 500 : status, System.nanoTime() - start, in.count, out.count);
+                }
+            };
+        }
+
+        static String render(ServerExecutor executor) {
+            StringBuilder sb = new StringBuilder(4096);
+            header(sb, "http_requests_total", "counter", "HTTP responses by route and status.");
+            for (Route route : ROUTES) {
+                for (int status = 0; status < Route.STATUS_SLOTS; status++) {
+                    long count = route.statuses.get(status);
+                    if (count > 0) {
+                        sb.append(PREFIX).append("http_requests_total{route=\"").append(route.path)
+                                .append("\",status=\"").append(status).append("\"} ").append(count).append('\n');
+                    }
+                }
+            }
+
+            header(sb, "http_request_duration_seconds", "summary", "Request latency by route.");
+            for (Route route : ROUTES) {
+                long[] counts = route.latency.snapshot();
+                long total = 0;
+                for (long c : counts) total += c;
+                if (total == 0) continue;
+                for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                    sb.append(PREFIX).append("http_request_duration_seconds{route=\"").append(route.path)
+                            .append("\",quantile=\"").append(q).append("\"} ")
+                            .append(Histogram.quantile(counts, total, q) / 1e9).append('\n');
+                }
+                sb.append(PREFIX).append("http_request_duration_seconds_sum{route=\"").append(route.path).append("\"} ")
+                        .append(route.latency.sumNanos() / 1e9).append('\n');
+                sb.append(PREFIX).append("http_request_duration_seconds_count{route=\"").append(route.path).append("\"} ")
+                        .append(total).append('\n');
+            }
+
+            header(sb, "http_request_bytes_total", "counter", "Request body bytes read by route.");
+            for (Route route : ROUTES) {
+                sample(sb, "http_request_bytes_total", "route", route.path, route.bytesIn.sum());
+            }
+            header(sb, "http_response_bytes_total", "counter", "Response body bytes written by route.");
+            for (Route route : ROUTES) {
+                sample(sb, "http_response_bytes_total", "route", route.path, route.bytesOut.sum());
+            }
+
+            header(sb, "checksum_verifications_total", "counter", "Verified values by outcome (HTTP and binary listener).");
+            sample(sb, "checksum_verifications_total", "outcome", "match", MATCHES.sum());
+            sample(sb, "checksum_verifications_total", "outcome", "mismatch", MISMATCHES.sum());
+
+            header(sb, "primality_checks_total", "counter", "Primality checks by the branch that decided them.");
+            sample(sb, "primality_checks_total", "branch", "sieve", PRIMALITY_SIEVE.sum());
+            sample(sb, "primality_checks_total", "branch", "trial", PRIMALITY_TRIAL.sum());
+            sample(sb, "primality_checks_total", "branch", "miller_rabin", PRIMALITY_MILLER_RABIN.sum());
+            sample(sb, "primality_checks_total", "branch", "big", PRIMALITY_BIG.sum());
+
+            if (executor != null) {
+                header(sb, "executor_queue_depth", "gauge", "Requests accepted but not yet started.");
+                sample(sb, "executor_queue_depth", "mode", executor.mode, executor.queueDepth());
+                header(sb, "executor_active_threads", "gauge", "Requests currently running.");
+                sample(sb, "executor_active_threads", "mode", executor.mode, executor.activeThreads());
+                header(sb, "executor_rejected_total", "counter", "Requests answered 503 because the queue was full.");
+                sample(sb, "executor_rejected_total", "mode", executor.mode, executor.rejected());
+            }
+
+            ResponseCache cache = ResponseCache.shared();
+            if (cache != null) {
+                header(sb, "cache_requests_total", "counter", "Response cache lookups by result.");
+                sample(sb, "cache_requests_total", "result", "hit", cache.hits());
+                sample(sb, "cache_requests_total", "result", "miss", cache.misses());
+                header(sb, "cache_evictions_total", "counter", "Response cache entries evicted.");
+                sb.append(PREFIX).append("cache_evictions_total ").append(cache.evictions()).append('\n');
+            }
+
+            AuditLog audit = AuditLog.shared();
+            if (audit != null) {
+                header(sb, "audit_records", "gauge", "Verifications in the audit log.");
+                sb.append(PREFIX).append("audit_records ").append(audit.records()).append('\n');
+                header(sb, "audit_dropped_total", "counter", "Verifications not audited because the writer fell behind.");
+                sb.append(PREFIX).append("audit_dropped_total ").append(audit.dropped()).append('\n');
+            }
+            return sb.toString();
+        }
+
+        private static void header(StringBuilder sb, String name, String type, String help) {
+            sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+        }
+
+        private static void sample(StringBuilder sb, String name, String label, String value, long count) {
+            sb.append(PREFIX).append(name).append('{').append(label).append("=\"").append(value).append("\"} ")
+                    .append(count).append('\n');
+        }
+
+        static final class Route {
+            static final int STATUS_SLOTS = 600;
+
+            final String path;
+            final Histogram latency = new Histogram();
+            final AtomicLongArray statuses = new AtomicLongArray(STATUS_SLOTS);
+            final LongAdder bytesIn = new LongAdder();
+            final LongAdder bytesOut = new LongAdder();
+
+            Route(String path) {
+                this.path = path;
+            }
+
+            void record(int status, long nanos, long in, long out) {
+                statuses.incrementAndGet(status >= 0 && status < STATUS_SLOTS ? status : 0);
+                latency.record(nanos);
+                if (in > 0) bytesIn.add(in);
+                if (out > 0) bytesOut.add(out);
+            }
+        }
+
+        // Log-linear histogram in the style of HdrHistogram: values below 64 get their own bucket, above that
+        // each power of two is split into 32 buckets, so any recorded value is within about 3% of its bucket.
+        // Buckets are plain atomic counters; there is no resizing and no lock.
+        static final class Histogram {
+            private static final int SUB_BITS = 5;
+            private static final int SUB_COUNT = 1 << SUB_BITS;
+            static final int BUCKETS = (63 - SUB_BITS) * SUB_COUNT + 2 * SUB_COUNT;
+
+            private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+            private final LongAdder sum = new LongAdder();
+
+            void record(long value) {
+                if (value < 0) value = 0;
+                counts.incrementAndGet(bucketOf(value));
+                sum.add(value);
+            }
+
+            long[] snapshot() {
+                long[] copy = new long[BUCKETS];
+                for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+                return copy;
+            }
+
+            long sumNanos() {
+                return sum.sum();
+            }
+
+            static int bucketOf(long value) {
+                if (value < 2 * SUB_COUNT) return (int) value;
+                int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+                return shift * SUB_COUNT + (int) (value >>> shift);
+            }
+
+            // Midpoint of the values that land in bucket.
+            static long valueOf(int bucket) {
+                if (bucket < 2 * SUB_COUNT) return bucket;
+                int shift = bucket / SUB_COUNT - 1;
+                long lower = (long) (bucket - shift * SUB_COUNT) << shift;
+                return lower + ((1L << shift) >>> 1);
+            }
+
+            static long quantile(long[] counts, long total, double q) {
+                long rank = Math.max(1, (long) Math.ceil(q * total));
+                long seen = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    seen += counts[i];
+                    if (seen >= rank) return valueOf(i);
+                }
+                return 0;
+            }
+        }
+
+        private static final class CountingInputStream extends FilterInputStream {
+            long count;
+
+            CountingInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b >= 0) count++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n > 0) count += n;
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = in.skip(n);
+                count += skipped;
+                return skipped;
+            }
+        }
+
+        private static final class CountingOutputStream extends FilterOutputStream {
+            long count;
+
+            CountingOutputStream(OutputStream out) {
+                super(out);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                count++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                count += len;
+            }
+        }
+
+        // GET /metrics
+        static final class Handler implements HttpHandler {
+            private final ServerExecutor executor;
+
+            Handler(ServerExecutor executor) {
+                this.executor = executor;
+            }
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] bytes = render(executor).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-store");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+        }
+    }
+
+    static final class HttpUtil {
+        static String readUtf8Body(HttpExchange exchange) throws IOException {
+            return BufferPool.readUtf8(exchange.getRequestBody());
+        }
+    }
+
+    // Per-thread buffers for request bodies, response bodies and response-cache keys, so a pool thread answers
+    // requests without allocating for them: JSON is written straight into these as UTF-8 and sent with one write.
+    // Under --executor=virtual every request has a thread of its own and gets fresh (small) buffers.
+    static final class BufferPool {
+        // A buffer that grew past this for one large request is dropped afterwards instead of kept per thread.
+        static final int MAX_RETAINED = 64 * 1024;
+        private static final ThreadLocal<BufferPool> POOL = ThreadLocal.withInitial(BufferPool::new);
+
+        private final Utf8Buffer response = new Utf8Buffer(512);
+        private final Utf8Buffer cacheKey = new Utf8Buffer(64);
+        private byte[] input;
+
+        // The calling thread's response buffer, emptied.
+        static Utf8Buffer response() {
+            return POOL.get().response.reset();
+        }
+
+        // The calling thread's cache-key buffer, emptied.
+        static Utf8Buffer cacheKey() {
+            return POOL.get().cacheKey.reset();
+        }
+
+        // Reads the whole stream into the calling thread's input buffer and decodes it.
+        static String readUtf8(InputStream in) throws IOException {
+            BufferPool pool = POOL.get();
+            byte[] buf = pool.input != null ? pool.input : new byte[4096];
+            int size = 0;
+            int n;
+            while ((n = in.read(buf, size, buf.length - size)) > 0) {
+                size += n;
+                if (size == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+            }
+            pool.input = buf.length <= MAX_RETAINED ? buf : null;
+            return new String(buf, 0, size, StandardCharsets.UTF_8);
+        }
+    }
+
+    // A growable byte buffer that encodes what is appended as UTF-8 in place: no intermediate String or byte[].
+    // Equality and hash code are by content, so a filled buffer can look up a map keyed by buffers; keys stored in
+    // a map are copies and must not change afterwards.
+    static final class Utf8Buffer {
+        private final int initialCapacity;
+        private byte[] bytes;
+        private int size;
+
+        Utf8Buffer(int capacity) {
+            this.initialCapacity = capacity;
+            this.bytes = new byte[capacity];
+        }
+
+        private Utf8Buffer(byte[] bytes) {
+            this.initialCapacity = bytes.length;
+            this.bytes = bytes;
+            this.size = bytes.length;
+        }
+
+        Utf8Buffer reset() {
+            if (bytes.length > BufferPool.MAX_RETAINED) {
+                bytes = new byte[initialCapacity];
+            }
+            size = 0;
+            return this;
+        }
+
+        int length() {
+            return size;
+        }
+
+        Utf8Buffer append(String s) {
+            int n = s.length();
+            ensure(n);
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (size == bytes.length) ensure(n - i);
+                    bytes[size++] = (byte) c;
+                } else {
+                    i = appendNonAscii(s, i, c);
+                }
+            }
+            return this;
+        }
+
+        // Encodes the character at i (with its low surrogate, if any) and returns the index of the last one used.
+        private int appendNonAscii(String s, int i, char c) {
+            ensure(4);
+            if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                return i;
+            } else if (Character.isSurrogate(c)) {
+                int cp = Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))
+                        ? Character.toCodePoint(c, s.charAt(i + 1)) : -1;
+                if (cp < 0) {
+                    // An unpaired surrogate, encoded as '?' like String.getBytes does.
+                    bytes[size++] = '?';
+                    return i;
+                }
+                bytes[size++] = (byte) (0xF0 | (cp >> 18));
+                bytes[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (cp & 0x3F));
+                return i + 1;
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                return i;
+            }
+        }
+
+        // An ASCII character.
+        Utf8Buffer append(char c) {
+            ensure(1);
+            bytes[size++] = (byte) c;
+            return this;
+        }
+
+        Utf8Buffer append(boolean b) {
+            return append(b ? "true" : "false");
+        }
+
+        Utf8Buffer append(int v) {
+            if (v < 0) {
+                if (v == Integer.MIN_VALUE) return append("-2147483648");
+                append('-');
+                v = -v;
+            }
+            int digits = 1;
+            for (int t = 10; digits < 10 && v >= t; t *= 10) digits++;
+            ensure(digits);
+            int i = size + digits;
+            // Two digits per division, as Integer.toString does.
+            while (v >= 100) {
+                int q = v / 100;
+                int r = v - q * 100;
+                bytes[--i] = (byte) ('0' + r % 10);
+                bytes[--i] = (byte) ('0' + r / 10);
+                v = q;
+            }
+            if (v >= 10) {
+                bytes[--i] = (byte) ('0' + v % 10);
+                v /= 10;
+            }
+            bytes[--i] = (byte) ('0' + v);
+            size += digits;
+            return this;
+        }
+
+        Utf8Buffer append(long v) {
+            if (v == (int) v) {
+                return append((int) v);
+            }
+            if (v < 0) {
+                append('-');
+                // -Long.MIN_VALUE is Long.MIN_VALUE, which read unsigned is the right magnitude.
+                return appendUnsigned(-v);
+            }
+            return appendUnsigned(v);
+        }
+
+        // v read as unsigned, like Long.toUnsignedString.
+        Utf8Buffer appendUnsigned(long v) {
+            if (v < 0) {
+                // Above 2^63: unsigned v / 10 without Long.divideUnsigned, then the last digit.
+                long q = (v >>> 1) / 5;
+                return appendUnsigned(q).append((char) ('0' + (v - q * 10)));
+            }
+            ensure(19);
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) digits++;
+            int end = size + digits;
+            for (int i = end - 1; i >= size; i--, v /= 10) bytes[i] = (byte) ('0' + v % 10);
+            size = end;
+            return this;
+        }
+
+        // A value with 7 decimals, meant for fractions in [0, 1].
+        Utf8Buffer appendFraction(double x) {
+            long scaled = Math.round(x * 10_000_000);
+            if (scaled < 0) {
+                append('-');
+                scaled = -scaled;
+            }
+            append(scaled / 10_000_000).append('.');
+            long fraction = scaled % 10_000_000;
+            for (long p = 1_000_000; p > fraction && p > 1; p /= 10) append('0');
+            return append(fraction);
+        }
+
+        // [a,b,c]
+        Utf8Buffer appendList(long[] values) {
+            append('[');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) append(',');
+                append(values[i]);
+            }
+            return append(']');
+        }
+
+        Utf8Buffer appendList(int[] values) {
+            append('[');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) append(',');
+                append(values[i]);
+            }
+            return append(']');
+        }
+
+        Utf8Buffer append(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        // An unchanging copy, for use as a map key.
+        Utf8Buffer copy() {
+            return new Utf8Buffer(toByteArray());
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, size, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 1;
+            for (int i = 0; i < size; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Utf8Buffer)) return false;
+            Utf8Buffer other = (Utf8Buffer) o;
+            if (other.size != size) return false;
+            for (int i = 0; i < size; i++) {
+                if (bytes[i] != other.bytes[i]) return false;
+            }
+            return true;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    // Single-pass reader for the flat JSON objects the API accepts. It never builds a tree or substrings:
+    // keys are matched in place against the body and numbers are accumulated digit by digit.
+    static final class JsonUtil {
+        static Integer getInt(String json, String key) {
+            return readInts(json, key)[0];
+        }
+
+        // Returns the top-level integer members named by keys, in the same order. An entry is null when the
+        // member is missing, is not an integer, or does not fit in an int. A repeated key keeps its last value,
+        // as JSON.parse does. Malformed input yields all nulls.
+        static Integer[] readInts(String json, String... keys) {
+            Integer[] values = new Integer[keys.length];
+            if (json == null) return values;
+            Reader r = new Reader(json);
+            if (!r.readObject(keys, values)) {
+                Arrays.fill(values, null);
+            }
+            return values;
+        }
+
+        private static final class Reader {
+            private final String s;
+            private final int end;
+            private int pos;
+            private boolean malformed;
+
+            Reader(String s) {
+                this.s = s;
+                this.end = s.length();
+            }
+
+            boolean readObject(String[] keys, Integer[] values) {
+                skipWhitespace();
+                if (!consume('{')) return false;
+                skipWhitespace();
+                if (consume('}')) return trailingWhitespaceOnly();
+                while (true) {
+                    skipWhitespace();
+                    if (pos >= end || s.charAt(pos) != '"') return false;
+                    int keyIndex = readKey(keys);
+                    if (keyIndex == -2) return false;
+                    skipWhitespace();
+                    if (!consume(':')) return false;
+                    skipWhitespace();
+                    if (pos >= end) return false;
+
+                    char c = s.charAt(pos);
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        Integer v = readInteger();
+                        if (malformed) return false;
+                        if (keyIndex >= 0) values[keyIndex] = v;
+                    } else {
+                        if (!skipValue()) return false;
+                        if (keyIndex >= 0) values[keyIndex] = null;
+                    }
+
+                    skipWhitespace();
+                    if (consume(',')) continue;
+                    if (consume('}')) return trailingWhitespaceOnly();
+                    return false;
+                }
+            }
+
+            // Returns the index of the matching key, -1 for an unknown key, or -2 for an unterminated string.
+            private int readKey(String[] keys) {
+                int start = ++pos;
+                while (pos < end) {
+                    char c = s.charAt(pos);
+                    if (c == '"') {
+                        int len = pos - start;
+                        pos++;
+                        for (int i = 0; i < keys.length; i++) {
+                            if (keys[i].length() == len && s.regionMatches(start, keys[i], 0, len)) return i;
+                        }
+                        return -1;
+                    }
+                    if (c == '\\') {
+                        // Escaped keys are rare enough to decode the slow way.
+                        pos = start - 1;
+                        String key = readEscapedString();
+                        if (key == null) return -2;
+                        for (int i = 0; i < keys.length; i++) {
+                            if (keys[i].equals(key)) return i;
+                        }
+                        return -1;
+                    }
+                    pos++;
+                }
+                return -2;
+            }
+
+            private String readEscapedString() {
+                StringBuilder sb = new StringBuilder();
+                pos++;
+                while (pos < end) {
+                    char c = s.charAt(pos++);
+                    if (c == '"') return sb.toString();
+                    if (c != '\\') {
+                        sb.append(c);
+                        continue;
+                    }
+                    if (pos >= end) return null;
+                    char e = s.charAt(pos++);
+                    switch (e) {
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'n': sb.append('\n'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'u':
+                            if (pos + 4 > end) return null;
+                            try {
+                                sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            } catch (NumberFormatException ex) {
+                                return null;
+                            }
+                            pos += 4;
+                            break;
+                        default: sb.append(e);
+                    }
+                }
+                return null;
+            }
+
+            // Returns null for a valid number that is not an int; sets malformed for broken number syntax.
+            private Integer readInteger() {
+                boolean negative = consume('-');
+                int digitsStart = pos;
+                long acc = 0;
+                boolean overflow = false;
+                while (pos < end) {
+                    char c = s.charAt(pos);
+                    if (c < '0' || c > '9') break;
+                    if (!overflow) {
+                        acc = acc * 10 + (c - '0');
+                        if (acc > (long) Integer.MAX_VALUE + 1) overflow = true;
+                    }
+                    pos++;
+                }
+                if (pos == digitsStart) return fail();
+
+                boolean fractional = false;
+                if (pos < end && s.charAt(pos) == '.') {
+                    fractional = true;
+                    pos++;
+                    if (!skipDigits()) return fail();
+                }
+                if (pos < end && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+                    fractional = true;
+                    pos++;
+                    if (pos < end && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) pos++;
+                    if (!skipDigits()) return fail();
+                }
+                if (fractional || overflow) return null;
+
+                long v = negative ? -acc : acc;
+                if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) return null;
+                return (int) v;
+            }
+
+            private Integer fail() {
+                malformed = true;
+                return null;
+            }
+
+            private boolean skipDigits() {
+                int start = pos;
+                while (pos < end && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') pos++;
+                return pos > start;
+            }
+
+            private boolean skipValue() {
+                char c = s.charAt(pos);
+                if (c == '"') return skipString();
+                if (c == '{' || c == '[') return skipNested();
+                int start = pos;
+                while (pos < end && Character.isLetter(s.charAt(pos))) pos++;
+                String word = s.substring(start, pos);
+                return "true".equals(word) || "false".equals(word) || "null".equals(word);
+            }
+
+            private boolean skipString() {
+                pos++;
+                while (pos < end) {
+                    char c = s.charAt(pos++);
+                    if (c == '"') return true;
+                    if (c == '\\') pos++;
+                }
+                return false;
+            }
+
+            // Skips an object or array. Only the bracket structure is checked; nested members are never read.
+            private boolean skipNested() {
+                int depth = 0;
+                while (pos < end) {
+                    char c = s.charAt(pos);
+                    if (c == '"') {
+                        if (!skipString()) return false;
+                        continue;
+                    }
+                    if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                        if (depth == 0) {
+                            pos++;
+                            return true;
+                        }
+                    }
+                    pos++;
+                }
+                return false;
+            }
+
+            private void skipWhitespace() {
+                while (pos < end) {
+                    char c = s.charAt(pos);
+                    if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+                    pos++;
+                }
+            }
+
+            private boolean consume(char c) {
+                if (pos < end && s.charAt(pos) == c) {
+                    pos++;
+                    return true;
+                }
+                return false;
+            }
+
+            private boolean trailingWhitespaceOnly() {
+                skipWhitespace();
+                return pos == end;
+            }
+        }
+    }
+
+    // Caps the length so a request cannot ask for a primality test on a megabyte-long number.
+    private static BigInteger safeParseBigInteger(String s) {
+        if (s == null || s.trim().length() > PrimalityEngine.MAX_BIG_DIGITS) return null;
+        try {
+            return new BigInteger(s.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static Long safeParseLong(String s) {
+        if (s == null) return null;
+        try {
+            return Long.parseLong(s.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static Integer safeParseInt(String s) {
+        if (s == null) return null;
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // Serves the web root from an in-memory snapshot that is loaded at startup and swapped whenever a
+    // WatchService reports a change. Each asset carries gzip and deflate variants (kept only when smaller),
+    // a strong ETag per encoding and a Last-Modified date, so conditional GETs can be answered with 304.
+    static final class StaticHandler implements HttpHandler {
+        private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+        private final Path webRoot;
+        private volatile Map<Path, Asset> assets;
+
+        StaticHandler(Path webRoot) {
+            this.webRoot = webRoot;
+            this.assets = loadAssets(webRoot);
+            watch();
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String rawPath = exchange.getRequestURI().getPath();
+            String rel = (rawPath == null || rawPath.isEmpty() || "/".equals(rawPath)) ? "/index.html" : rawPath;
+            Path target = webRoot.resolve(rel.substring(1)).normalize();
+
+            // The snapshot only holds regular files under the web root, so a miss covers traversal and directories.
+            Map<Path, Asset> snapshot = assets;
+            Asset asset = snapshot.get(target);
+            if (asset == null) {
+                // Fallback to index for SPA-ish navigation.
+                asset = snapshot.get(webRoot.resolve("index.html"));
+                if (asset == null) {
+                    byte[] notFound = "Missing web/index.html".getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                    exchange.sendResponseHeaders(404, notFound.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(notFound);
+                    }
+                    return;
+                }
+            }
+
+            Headers request = exchange.getRequestHeaders();
+            String acceptEncoding = request.getFirst("Accept-Encoding");
+            byte[] body = asset.bytes;
+            String encoding = null;
+            if (asset.gzip != null && acceptsEncoding(acceptEncoding, "gzip")) {
+                body = asset.gzip;
+                encoding = "gzip";
+            } else if (asset.deflate != null && acceptsEncoding(acceptEncoding, "deflate")) {
+                body = asset.deflate;
+                encoding = "deflate";
+            }
+            String etag = encoding == null ? asset.etag : asset.etag.substring(0, asset.etag.length() - 1) + "-" + encoding + "\"";
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", asset.contentType);
+            headers.set("Cache-Control", "no-cache");
+            headers.set("ETag", etag);
+            headers.set("Last-Modified", asset.lastModified);
+            headers.set("Vary", "Accept-Encoding");
+
+            if (notModified(request, etag, asset)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            if (encoding != null) {
+                headers.set("Content-Encoding", encoding);
+            }
+            // HttpServer offers no sendfile path; a single write of the cached array with a fixed length is the closest.
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+
+        private static boolean notModified(Headers request, String etag, Asset asset) {
+            String ifNoneMatch = request.getFirst("If-None-Match");
+            if (ifNoneMatch != null) {
+                for (String tag : ifNoneMatch.split(",")) {
+                    String t = tag.trim();
+                    if ("*".equals(t) || etag.equals(t)) return true;
+                }
+                return false;
+            }
+            String ifModifiedSince = request.getFirst("If-Modified-Since");
+            if (ifModifiedSince != null) {
+                try {
+                    long since = ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toInstant().toEpochMilli();
+                    return asset.lastModifiedMillis <= since;
+                } catch (DateTimeParseException ignored) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private static boolean acceptsEncoding(String header, String encoding) {
+            if (header == null) return false;
+            for (String part : header.split(",")) {
+                String[] tokens = part.split(";");
+                if (!encoding.equalsIgnoreCase(tokens[0].trim())) continue;
+                for (int i = 1; i < tokens.length; i++) {
+                    String param = tokens[i].trim();
+                    if (param.startsWith("q=")) {
+                        Double q = safeParseDouble(param.substring(2));
+                        return q != null && q > 0;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private static Double safeParseDouble(String s) {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        private void watch() {
+            final WatchService watcher;
+            try {
+                if (!Files.isDirectory(webRoot)) return;
+                watcher = webRoot.getFileSystem().newWatchService();
+                registerTree(watcher);
+            } catch (IOException e) {
+                System.err.println("Static assets will not auto-refresh: " + e.getMessage());
+                return;
+            }
+
+            Thread t = new Thread(() -> {
+                while (true) {
+                    WatchKey key;
+                    try {
+                        key = watcher.take();
+                        // Editors tend to write in bursts; let them settle before reloading.
+                        Thread.sleep(100);
+                    } catch (InterruptedException | ClosedWatchServiceException e) {
+                        return;
+                    }
+                    key.pollEvents();
+                    key.reset();
+                    WatchKey more;
+                    while ((more = watcher.poll()) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    try {
+                        registerTree(watcher);
+                    } catch (IOException ignored) {
+                        // New subdirectories just won't be watched.
+                    }
+                    assets = loadAssets(webRoot);
+                }
+            }, "static-asset-watcher");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        private void registerTree(WatchService watcher) throws IOException {
+            try (Stream<Path> dirs = Files.walk(webRoot)) {
+                for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                    dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        }
+
+        static Map<Path, Asset> loadAssets(Path webRoot) {
+            Map<Path, Asset> loaded = new HashMap<>();
+            if (!Files.isDirectory(webRoot)) return Collections.emptyMap();
+            try (Stream<Path> files = Files.walk(webRoot)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    try {
+                        loaded.put(file.toAbsolutePath().normalize(), Asset.load(file));
+                    } catch (IOException e) {
+                        // A file that vanished or is mid-write is picked up by the next refresh.
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Failed to load web root: " + e.getMessage());
+            }
+            return Collections.unmodifiableMap(loaded);
+        }
+
+        static final class Asset {
+            final byte[] bytes;
+            final byte[] gzip;
+            final byte[] deflate;
+            final String contentType;
+            final String etag;
+            final String lastModified;
+            final long lastModifiedMillis;
+
+            private Asset(byte[] bytes, byte[] gzip, byte[] deflate, String contentType, String etag, long lastModifiedMillis) {
+                this.bytes = bytes;
+                this.gzip = gzip;
+                this.deflate = deflate;
+                this.contentType = contentType;
+                this.etag = etag;
+                // HTTP dates have one-second resolution, so compare on whole seconds.
+                this.lastModifiedMillis = lastModifiedMillis / 1000 * 1000;
+                this.lastModified = HTTP_DATE.format(Instant.ofEpochMilli(this.lastModifiedMillis));
+            }
+
+            static Asset load(Path file) throws IOException {
+                byte[] bytes = Files.readAllBytes(file);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+
+                ByteArrayOutputStream gz = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+                    out.write(bytes);
+                }
+                ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                try (DeflaterOutputStream out = new DeflaterOutputStream(zlib, deflater)) {
+                    out.write(bytes);
+                } finally {
+                    deflater.end();
+                }
+
+                return new Asset(
+                        bytes,
+                        gz.size() < bytes.length ? gz.toByteArray() : null,
+                        zlib.size() < bytes.length ? zlib.toByteArray() : null,
+                        contentType(file),
+                        strongEtag(bytes),
+                        modified);
+            }
+
+            private static String strongEtag(byte[] bytes) {
+                try {
+                    byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+                    StringBuilder sb = new StringBuilder("\"");
+                    for (int i = 0; i < 12; i++) {
+                        sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+                    }
+                    return sb.append('"').toString();
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        private static String contentType(Path p) {
+            String name = p.getFileName().toString().toLowerCase();
+            if (name.endsWith(".html")) return "text/html; charset=utf-8";
+            if (name.endsWith(".css")) return "text/css; charset=utf-8";
+            if (name.endsWith(".js")) return "application/javascript; charset=utf-8";
+            if (name.endsWith(".svg")) return "image/svg+xml";
+            return "application/octet-stream";
+        }
+    }
+
+    // Splits the query once into a table of [keyStart, eq, end) ranges over the raw string. Plain keys are
+    // matched in place; only keys and values that contain '%' or '+' go through URLDecoder, at most once each.
+    // Malformed input behaves as before: parts without '=' or with an empty key are ignored, the first
+    // occurrence of a key wins, and a bad percent-escape leaves the text undecoded.
+    static final class QueryParams {
+        private final String raw;
+        private int[] bounds = new int[3 * 4];
+        private String[] decodedKeys = new String[4];
+        private String[] decodedValues = new String[4];
+        private int size;
+
+        private QueryParams(String raw) {
+            this.raw = raw == null ? "" : raw;
+        }
+
+        static QueryParams parse(String rawQuery) {
+            QueryParams qp = new QueryParams(rawQuery);
+            qp.scan();
+            return qp;
+        }
+
+        private void scan() {
+            int n = raw.length();
+            int segStart = 0;
+            int eq = -1;
+            for (int i = 0; i <= n; i++) {
+                char c = i < n ? raw.charAt(i) : '&';
+                if (c == '=' && eq < 0) {
+                    eq = i;
+                } else if (c == '&') {
+                    if (eq > segStart) add(segStart, eq, i);
+                    segStart = i + 1;
+                    eq = -1;
+                }
+            }
+        }
+
+        private void add(int keyStart, int eq, int end) {
+            if (size == decodedKeys.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                decodedKeys = Arrays.copyOf(decodedKeys, size * 2);
+                decodedValues = Arrays.copyOf(decodedValues, size * 2);
+            }
+            bounds[3 * size] = keyStart;
+            bounds[3 * size + 1] = eq;
+            bounds[3 * size + 2] = end;
+            if (needsDecoding(keyStart, eq)) {
+                decodedKeys[size] = decode(raw.substring(keyStart, eq));
+            }
+            size++;
+        }
+
+        private int indexOf(String key) {
+            if (key == null || key.isEmpty()) return -1;
+            int len = key.length();
+            for (int i = 0; i < size; i++) {
+                String decoded = decodedKeys[i];
+                if (decoded != null) {
+                    if (key.equals(decoded)) return i;
+                } else {
+                    int keyStart = bounds[3 * i];
+                    if (bounds[3 * i + 1] - keyStart == len && raw.regionMatches(keyStart, key, 0, len)) return i;
+                }
+            }
+            return -1;
+        }
+
+        String get(String key) {
+            int i = indexOf(key);
+            if (i < 0) return null;
+            String v = decodedValues[i];
+            if (v == null) {
+                int start = bounds[3 * i + 1] + 1;
+                int end = bounds[3 * i + 2];
+                v = raw.substring(start, end);
+                if (needsDecoding(start, end)) v = decode(v);
+                decodedValues[i] = v;
+            }
+            return v;
+        }
+
+        Integer getInt(String key) {
+            int i = indexOf(key);
+            if (i < 0) return null;
+
+            // Fast path: an optional '-' followed by up to 10 ASCII digits is read straight from the raw range.
+            int pos = bounds[3 * i + 1] + 1;
+            int end = bounds[3 * i + 2];
+            boolean negative = pos < end && raw.charAt(pos) == '-';
+            if (negative) pos++;
+            int digits = end - pos;
+            if (digits > 0 && digits <= 10) {
+                long acc = 0;
+                for (; pos < end; pos++) {
+                    char c = raw.charAt(pos);
+                    if (c < '0' || c > '9') break;
+                    acc = acc * 10 + (c - '0');
+                }
+                if (pos == end) {
+                    long v = negative ? -acc : acc;
+                    return v < Integer.MIN_VALUE || v > Integer.MAX_VALUE ? null : (int) v;
+                }
+            }
+
+            String v = get(key);
+            if (v == null || v.trim().isEmpty()) return null;
+            try {
+                return Integer.parseInt(v.trim());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        private boolean needsDecoding(int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = raw.charAt(i);
+                if (c == '%' || c == '+') return true;
+            }
+            return false;
+        }
+
+        private static String decode(String s) {
+            try {
+                return URLDecoder.decode(s, "UTF-8");
+            } catch (Exception ex) {
+                return s;
+            }
+        }
+    }
+
+    private static void setModernLookAndFeel() {
+        try {
+            for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
+                if ("Nimbus".equals(info.getName())) {
+                    UIManager.setLookAndFeel(info.getClassName());
+                    break;
+                }
+            }
+        } catch (Exception ignored) {
+            // Fallback to default look and feel
+        }
+
+        Font base = new Font("Segoe UI", Font.PLAIN, 13);
+        UIManager.put("defaultFont", base);
+        UIManager.put("Label.font", base);
+        UIManager.put("Button.font", base);
+        UIManager.put("TextField.font", base);
+        UIManager.put("TextArea.font", base);
+    }
+
+    // Primality for int, long and BigInteger. Below the sieve bound it is one bit lookup in an odd-only bitset;
+    // above it, deterministic Miller-Rabin with witness sets proven for the whole int and long ranges, in
+    // Montgomery arithmetic so there are no divides in the loop. BigIntegers wider than 63 bits fall back to
+    // BigInteger.isProbablePrime (Miller-Rabin plus Lucas), which no known input fools.
+    static final class PrimalityEngine {
+        static final int DEFAULT_SIEVE_BOUND = 1 << 24;
+        // Numbers from the bound up are trial-divided by SMALL_PRIMES, so the sieve must cover all of those.
+        static final int MIN_SIEVE_BOUND = 64;
+        static final int MAX_BIG_DIGITS = 700;
+
+        // Enough for every n < 4,759,123,141 (Jaeschke).
+        private static final long[] INT_WITNESSES = {2, 7, 61};
+        // Enough for every n < 2^64 (Sinclair).
+        private static final long[] LONG_WITNESSES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+        private static final int[] SMALL_PRIMES = {3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61};
+
+        private static volatile int configuredBound = DEFAULT_SIEVE_BOUND;
+        private static volatile PrimalityEngine shared;
+
+        private final int sieveBound;
+        // Bit i set means 2i + 1 is composite.
+        private final long[] oddComposites;
+
+        PrimalityEngine(int sieveBound) {
+            this.sieveBound = Math.max(sieveBound, MIN_SIEVE_BOUND);
+            this.oddComposites = new long[(this.sieveBound / 2 + 63) / 64 + 1];
+            for (long p = 3; p * p < this.sieveBound; p += 2) {
+                if (isOddComposite((int) p)) continue;
+                for (long multiple = p * p; multiple < this.sieveBound; multiple += 2 * p) {
+                    int bit = (int) (multiple >>> 1);
+                    oddComposites[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+
+        // Sets the sieve bound; an engine that was already built is replaced.
+        static synchronized void configure(int sieveBound) {
+            configuredBound = sieveBound;
+            if (shared != null) {
+                shared = new PrimalityEngine(sieveBound);
+            }
+        }
+
+        static PrimalityEngine shared() {
+            PrimalityEngine engine = shared;
+            if (engine == null) {
+                synchronized (PrimalityEngine.class) {
+                    engine = shared;
+                    if (engine == null) {
+                        engine = new PrimalityEngine(configuredBound);
+                        shared = engine;
+                    }
+                }
+            }
+            return engine;
+        }
+
+        int sieveBound() {
+            return sieveBound;
+        }
+
+        boolean isPrime(int n) {
+            if (n < sieveBound) {
+                Metrics.PRIMALITY_SIEVE.increment();
+                if (n < 2) return false;
+                if ((n & 1) == 0) return n == 2;
+                return !isOddComposite(n);
+            }
+            if (hasSmallFactor(n)) return false;
+            Metrics.PRIMALITY_MILLER_RABIN.increment();
+            return millerRabin(n, INT_WITNESSES);
+        }
+
+        boolean isPrime(long n) {
+            if (n <= Integer.MAX_VALUE) return n >= 0 && isPrime((int) n);
+            if (hasSmallFactor(n)) return false;
+            Metrics.PRIMALITY_MILLER_RABIN.increment();
+            return millerRabin(n, LONG_WITNESSES);
+        }
+
+        boolean isPrime(BigInteger n) {
+            if (n.bitLength() < 64) return isPrime(n.longValue());
+            // isProbablePrime looks at the absolute value.
+            if (n.signum() < 0) return false;
+            Metrics.PRIMALITY_BIG.increment();
+            return n.isProbablePrime(100);
+        }
+
+        // Most composites have a small factor; rejecting them here is far cheaper than a Miller-Rabin round.
+        // Kept separate from the long overload so int inputs use 32-bit division.
+        private static boolean hasSmallFactor(int n) {
+            boolean found = (n & 1) == 0;
+            for (int i = 0; !found && i < SMALL_PRIMES.length; i++) {
+                found = n % SMALL_PRIMES[i] == 0;
+            }
+            if (found) Metrics.PRIMALITY_TRIAL.increment();
+            return found;
+        }
+
+        private static boolean hasSmallFactor(long n) {
+            boolean found = (n & 1) == 0;
+            for (int i = 0; !found && i < SMALL_PRIMES.length; i++) {
+                found = n % SMALL_PRIMES[i] == 0;
+            }
+            if (found) Metrics.PRIMALITY_TRIAL.increment();
+            return found;
+        }
+
+        private boolean isOddComposite(int n) {
+            int bit = n >>> 1;
+            return (oddComposites[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        // n is odd and greater than every witness's residue class of concern.
+        private static boolean millerRabin(long n, long[] witnesses) {
+            Montgomery mont = new Montgomery(n);
+            long d = n - 1;
+            int s = Long.numberOfTrailingZeros(d);
+            d >>>= s;
+            long one = mont.one;
+            long minusOne = n - one;
+            outer:
+            for (long a : witnesses) {
+                a %= n;
+                if (a == 0) continue;
+                long x = mont.pow(mont.toMontgomery(a), d);
+                if (x == one || x == minusOne) continue;
+                for (int r = 1; r < s; r++) {
+                    x = mont.multiply(x, x);
+                    if (x == minusOne) continue outer;
+                    if (x == one) return false;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        // Montgomery multiplication mod an odd n < 2^63 with R = 2^64.
+        static final class Montgomery {
+            final long n;
+            // -n^-1 mod 2^64.
+            private final long negInverse;
+            // R mod n, i.e. 1 in Montgomery form.
+            final long one;
+            // R^2 mod n, to bring values into Montgomery form.
+            private final long rSquared;
+
+            Montgomery(long n) {
+                this.n = n;
+                long inverse = n;
+                for (int i = 0; i < 5; i++) {
+                    inverse *= 2 - n * inverse;
+                }
+                this.negInverse = -inverse;
+                long rMod = Long.remainderUnsigned(-1L, n) + 1;
+                this.one = rMod == n ? 0 : rMod;
+                long r2 = one;
+                for (int i = 0; i < 64; i++) {
+                    r2 <<= 1;
+                    if (Long.compareUnsigned(r2, n) >= 0) r2 -= n;
+                }
+                this.rSquared = r2;
+            }
+
+            long toMontgomery(long a) {
+                return multiply(a, rSquared);
+            }
+
+            // a * b * R^-1 mod n for a, b < n.
+            long multiply(long a, long b) {
+                long lo = a * b;
+                long hi = PreparedModulus.multiplyHighUnsigned(a, b);
+                long m = lo * negInverse;
+                long t = hi + PreparedModulus.multiplyHighUnsigned(m, n) + (lo != 0 ? 1 : 0);
+                return Long.compareUnsigned(t, n) >= 0 ? t - n : t;
+            }
+
+            long pow(long base, long exponent) {
+                long result = one;
+                while (exponent != 0) {
+                    if ((exponent & 1) != 0) result = multiply(result, base);
+                    base = multiply(base, base);
+                    exponent >>>= 1;
+                }
+                return result;
+            }
+        }
+    }
+
+    // Every prime below a limit (up to 2^31) as an odd-only bitmap kept off the heap: bit i says whether 2i + 1
+    // is prime, so the full int range takes 128 MiB. It is built as a segmented Sieve of Eratosthenes with
+    // segments sieved in parallel, and can live in a file that later starts map instead of rebuilding.
+    // Per-block prefix counts make count and nth cheap.
+    static final class PrimeBitmap {
+        static final long FULL_LIMIT = 1L << 31;
+        // The smallest bitmap built for a query when no limit or file was configured.
+        private static final long MIN_QUERY_LIMIT = 1L << 20;
+        private static final long FILE_MAGIC = 0x5052494D45424D31L; // "PRIMEBM1"
+        private static final int HEADER_BYTES = 64;
+        // Bits (odd numbers) per sieve segment; 32 KiB of bitmap, so a segment stays in L1/L2 while sieved.
+        private static final int SEGMENT_BITS = 1 << 18;
+        private static final int BLOCK_WORDS = 64;
+
+        private static volatile long configuredLimit = FULL_LIMIT;
+        private static volatile Path configuredFile;
+        private static volatile boolean configured;
+        private static volatile PrimeBitmap shared;
+
+        private final long limit;
+        private final LongBuffer words;
+        // blockCounts[b] = number of odd primes in words [0, b * BLOCK_WORDS).
+        private final long[] blockCounts;
+
+        private PrimeBitmap(long limit, LongBuffer words) {
+            this.limit = limit;
+            this.words = words;
+            int wordCount = words.capacity();
+            this.blockCounts = new long[(wordCount + BLOCK_WORDS - 1) / BLOCK_WORDS + 1];
+            long running = 0;
+            for (int w = 0; w < wordCount; w++) {
+                if (w % BLOCK_WORDS == 0) blockCounts[w / BLOCK_WORDS] = running;
+                running += Long.bitCount(words.get(w));
+            }
+            blockCounts[(wordCount + BLOCK_WORDS - 1) / BLOCK_WORDS] = running;
+        }
+
+        // From --prime-limit / --prime-bitmap; a limit of 0 keeps the current one. The server then builds (or maps)
+        // that bitmap at startup through load().
+        static synchronized void configure(long limit, Path file) {
+            if (limit > 0) configuredLimit = limit;
+            if (file != null) configuredFile = file;
+            configured = true;
+            shared = null;
+        }
+
+        static boolean configured() {
+            return configured;
+        }
+
+        // Numbers at or above this are never covered.
+        static long maxLimit() {
+            return configuredLimit;
+        }
+
+        // The configured bitmap, built or mapped now if it is not there yet.
+        static synchronized PrimeBitmap load() throws IOException {
+            if (shared == null || shared.limit != configuredLimit) {
+                shared = configuredFile == null ? build(configuredLimit) : open(configuredFile, configuredLimit);
+            }
+            return shared;
+        }
+
+        // A bitmap covering every number below bound, or up to maxLimit(). Unless one was configured, it is sized to
+        // the largest query so far (doubling from MIN_QUERY_LIMIT), so a small query never sieves the whole int range.
+        static PrimeBitmap covering(long bound) throws IOException {
+            PrimeBitmap bitmap = shared;
+            if (bitmap != null && (configured || bitmap.limit >= Math.min(bound, configuredLimit))) return bitmap;
+            synchronized (PrimeBitmap.class) {
+                if (configured) return load();
+                long limit = Math.min(configuredLimit, Math.max(MIN_QUERY_LIMIT, Long.highestOneBit(Math.max(bound - 1, 1)) << 1));
+                if (shared == null || shared.limit < limit) {
+                    shared = build(limit);
+                }
+                return shared;
+            }
+        }
+
+        // An upper bound on the n-th prime (Rosser: p_n < n (ln n + ln ln n) for n >= 6).
+        static long nthBound(long n) {
+            if (n < 6) return 12;
+            double ln = Math.log(n);
+            return (long) Math.ceil(n * (ln + Math.log(ln))) + 1;
+        }
+
+        static PrimeBitmap build(long limit) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(wordCount(limit) * 8).order(ByteOrder.LITTLE_ENDIAN);
+            sieve(limit, bytes.asLongBuffer());
+            return new PrimeBitmap(limit, bytes.asLongBuffer());
+        }
+
+        // Maps an existing bitmap file for the same limit, or sieves straight into a new mapping of the file.
+        static PrimeBitmap open(Path file, long limit) throws IOException {
+            long dataBytes = wordCount(limit) * 8L;
+            if (Files.exists(file) && Files.size(file) == HEADER_BYTES + dataBytes) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer header = ByteBuffer.allocate(16);
+                    channel.read(header, 0);
+                    header.flip();
+                    if (header.getLong() == FILE_MAGIC && header.getLong() == limit) {
+                        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, dataBytes);
+                        return new PrimeBitmap(limit, data.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+                    }
+                }
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, dataBytes);
+                sieve(limit, data.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+                data.force();
+                // The header goes last, so an interrupted build is never mistaken for a complete one.
+                ByteBuffer header = ByteBuffer.allocate(16);
+                header.putLong(FILE_MAGIC).putLong(limit).flip();
+                channel.write(header, 0);
+                channel.force(true);
+                return new PrimeBitmap(limit, data.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+            }
+        }
+
+        private static int wordCount(long limit) {
+            long bits = limit / 2; // odd numbers below limit
+            return (int) ((bits + 63) / 64);
+        }
+
+        private static void sieve(final long limit, final LongBuffer target) {
+            final int[] basePrimes = basePrimes((int) Math.sqrt((double) limit) + 1);
+            final long bits = limit / 2; // odd numbers below limit
+            int segments = (int) ((bits + SEGMENT_BITS - 1) / SEGMENT_BITS);
+            IntStream.range(0, segments).parallel().forEach(segment -> {
+                long lo = (long) segment * SEGMENT_BITS;
+                long hi = Math.min(lo + SEGMENT_BITS, bits);
+                long[] seg = new long[(int) ((hi - lo + 63) / 64)];
+                Arrays.fill(seg, -1L);
+                // Bits past the limit in the final word stay clear.
+                int tail = (int) ((hi - lo) & 63);
+                if (tail != 0) seg[seg.length - 1] = (1L << tail) - 1;
+                if (lo == 0) seg[0] &= ~1L; // 1 is not prime
+
+                for (int p : basePrimes) {
+                    long square = (long) p * p;
+                    if (square >= limit) break;
+                    // First odd multiple of p that is >= max(p^2, the segment's first number).
+                    long first = Math.max(square, 2 * lo + 1);
+                    long m = (first + p - 1) / p * p;
+                    if ((m & 1) == 0) m += p;
+                    for (long bit = (m - 1) / 2 - lo; bit < hi - lo; bit += p) {
+                        seg[(int) (bit >>> 6)] &= ~(1L << bit);
+                    }
+                }
+
+                // Each task writes a disjoint range through its own view, so no locking is needed.
+                LongBuffer view = target.duplicate();
+                view.position((int) (lo / 64));
+                view.put(seg);
+            });
+        }
+
+        private static int[] basePrimes(int upTo) {
+            boolean[] composite = new boolean[upTo + 1];
+            int[] primes = new int[upTo];
+            int count = 0;
+            for (int i = 3; i <= upTo; i += 2) {
+                if (composite[i]) continue;
+                primes[count++] = i;
+                for (long j = (long) i * i; j <= upTo; j += 2L * i) composite[(int) j] = true;
+            }
+            return Arrays.copyOf(primes, count);
+        }
+
+        long limit() {
+            return limit;
+        }
+
+        boolean isPrime(long n) {
+            if (n < 2 || n >= limit) return false;
+            if ((n & 1) == 0) return n == 2;
+            long bit = n >>> 1;
+            return (words.get((int) (bit >>> 6)) & (1L << bit)) != 0;
+        }
+
+        // Primes in [from, to].
+        long count(long from, long to) {
+            to = Math.min(to, limit - 1);
+            if (to < 2 || from > to) return 0;
+            return countOddBelow(to + 1) - countOddBelow(Math.max(from, 0)) + (from <= 2 && to >= 2 ? 1 : 0);
+        }
+
+        // Odd primes below n.
+        private long countOddBelow(long n) {
+            long bits = n / 2; // odd numbers 1, 3, ..., < n
+            int word = (int) (bits >>> 6);
+            int block = word / BLOCK_WORDS;
+            long count = blockCounts[block];
+            for (int w = block * BLOCK_WORDS; w < word; w++) count += Long.bitCount(words.get(w));
+            int rem = (int) (bits & 63);
+            if (rem != 0) count += Long.bitCount(words.get(word) & ((1L << rem) - 1));
+            return count;
+        }
+
+        // The n-th prime (1-based), or -1 if it is not below the limit.
+        long nth(long n) {
+            if (n == 1) return 2;
+            long target = n - 1; // rank among odd primes
+            int lo = 0;
+            int hi = blockCounts.length - 1;
+            if (blockCounts[hi] < target) return -1;
+            // Last block whose prefix count is below target.
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (blockCounts[mid] < target) lo = mid; else hi = mid - 1;
+            }
+            long seen = blockCounts[lo];
+            for (int w = lo * BLOCK_WORDS; w < words.capacity(); w++) {
+                long bitsInWord = words.get(w);
+                int c = Long.bitCount(bitsInWord);
+                if (seen + c >= target) {
+                    for (long k = target - seen; k > 1; k--) bitsInWord &= bitsInWord - 1;
+                    return 2L * (64L * w + Long.numberOfTrailingZeros(bitsInWord)) + 1;
+                }
+                seen += c;
+            }
+            return -1;
+        }
+
+        // The smallest prime greater than n, or -1 if there is none below the limit.
+        long nextPrime(long n) {
+            if (n < 2) return 2;
+            long candidate = (n + 1) | 1; // next odd number > n
+            if (candidate >= limit) return -1;
+            long bit = candidate >>> 1;
+            int w = (int) (bit >>> 6);
+            long masked = words.get(w) & (-1L << bit);
+            while (masked == 0) {
+                if (++w >= words.capacity()) return -1;
+                masked = words.get(w);
+            }
+            long prime = 2L * (64L * w + Long.numberOfTrailingZeros(masked)) + 1;
+            return prime < limit ? prime : -1;
+        }
+    }
+
+    // Reduction constants for one key, computed once so hot paths reduce with multiplies and shifts instead of a
+    // hardware divide. reduce is bit-identical to generateChecksum, negative inputs included; reduce63 serves the
+    // payload paths, which take |key| as a long.
+    static final class PreparedModulus {
+        // Small direct-mapped cache; entries are immutable, so racing writers only cost a recomputation.
+        private static final PreparedModulus[] CACHE = new PreparedModulus[64];
+
+        final int key;
+        final long modulus;
+        // ceil(2^64 / m) for Lemire's fastmod on 32-bit inputs.
+        private final long fastmodMultiplier;
+        // floor((2^64 - 1) / m) for Barrett reduction of 63-bit inputs.
+        private final long barrettMultiplier;
+        // 2^32 mod m, to map a negative int's unsigned reading back to floorMod.
+        private final long wrapCorrection;
+
+        private PreparedModulus(int key) {
+            this.key = key;
+            this.modulus = Math.abs((long) key);
+            if (modulus == 0) {
+                throw new ArithmeticException("Key/modulus must be non-zero");
+            }
+            this.fastmodMultiplier = Long.divideUnsigned(-1L, modulus) + 1;
+            this.barrettMultiplier = Long.divideUnsigned(-1L, modulus);
+            this.wrapCorrection = (1L << 32) % modulus;
+        }
+
+        static PreparedModulus of(int key) {
+            int slot = (key * 0x9E3779B9) >>> 26;
+            PreparedModulus p = CACHE[slot];
+            if (p == null || p.key != key) {
+                p = new PreparedModulus(key);
+                CACHE[slot] = p;
+            }
+            return p;
+        }
+
+        // Same as generateChecksum(x, key).
+        int reduce(int x) {
+            if (key == Integer.MIN_VALUE) {
+                return reduceMinValueKey(x);
+            }
+            return fastmod(x, fastmodMultiplier, modulus, wrapCorrection);
+        }
+
+        // Math.abs(MIN_VALUE) stays negative, so generateChecksum returns floorMod(x, -2^31), in (-2^31, 0].
+        private static int reduceMinValueKey(int x) {
+            int r = x & Integer.MAX_VALUE;
+            return r == 0 ? 0 : r | Integer.MIN_VALUE;
+        }
+
+        // floorMod(x, m): fastmod of x's unsigned reading, then 2^32 mod m taken back off for negative x. The
+        // sign fix-ups are masks rather than branches, since a bulk loop over mixed signs would mispredict
+        // about half of them.
+        private static int fastmod(int x, long multiplier, long m, long wrapCorrection) {
+            long lowBits = multiplier * (x & 0xFFFFFFFFL);
+            long r = ((lowBits >>> 32) * m + (((lowBits & 0xFFFFFFFFL) * m) >>> 32)) >>> 32;
+            r -= wrapCorrection & (x >> 31);
+            r += m & (r >> 63);
+            return (int) r;
+        }
+
+        void reduceAll(int[] data, int[] out, int length) {
+            if (key == Integer.MIN_VALUE) {
+                for (int i = 0; i < length; i++) out[i] = reduceMinValueKey(data[i]);
+                return;
+            }
+            // Fields copied to locals so the loop keeps them in registers.
+            long multiplier = fastmodMultiplier;
+            long m = modulus;
+            long correction = wrapCorrection;
+            for (int i = 0; i < length; i++) {
+                out[i] = fastmod(data[i], multiplier, m, correction);
+            }
+        }
+
+        void reduceAll(long[] data, int[] out, int length) {
+            long multiplier = barrettMultiplier;
+            long m = modulus;
+            // key = MIN_VALUE: floorMod with the negative modulus -2^31, as in generateChecksum.
+            long shift = key == Integer.MIN_VALUE ? m : 0;
+            for (int i = 0; i < length; i++) {
+                long x = data[i];
+                // For negative x, ~x = -x - 1 is non-negative and floorMod(x, m) = m - 1 - (~x mod m).
+                long sign = x >> 63;
+                long y = x ^ sign;
+                // reduce63 with its two corrections as masks.
+                long r = y - multiplyHighUnsigned(y, multiplier) * m;
+                r -= m & ~((r - m) >> 63);
+                r -= m & ~((r - m) >> 63);
+                r += sign & (m - 1 - 2 * r);
+                out[i] = (int) (r - (shift & (-r >> 63)));
+            }
+        }
+
+        int verifyAll(int[] sent, int[] received, int length, BitSet mismatches) {
+            mismatches.clear(0, length);
+            int count = 0;
+            if (key == Integer.MIN_VALUE) {
+                for (int i = 0; i < length; i++) {
+                    if (reduceMinValueKey(sent[i]) != reduceMinValueKey(received[i])) {
+                        mismatches.set(i);
+                        count++;
+                    }
+                }
+                return count;
+            }
+            long multiplier = fastmodMultiplier;
+            long m = modulus;
+            long correction = wrapCorrection;
+            for (int i = 0; i < length; i++) {
+                if (fastmod(sent[i], multiplier, m, correction) != fastmod(received[i], multiplier, m, correction)) {
+                    mismatches.set(i);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // x mod m for 0 <= x < 2^63.
+        long reduce63(long x) {
+            long r = x - multiplyHighUnsigned(x, barrettMultiplier) * modulus;
+            // The quotient estimate is at most two short.
+            if (r >= modulus) r -= modulus;
+            if (r >= modulus) r -= modulus;
+            return r;
+        }
+
+        // High 64 bits of the unsigned 128-bit product; Java 8 has no Math.multiplyHigh.
+        static long multiplyHighUnsigned(long x, long y) {
+            long x0 = x & 0xFFFFFFFFL;
+            long x1 = x >>> 32;
+            long y0 = y & 0xFFFFFFFFL;
+            long y1 = y >>> 32;
+            long t = x1 * y0 + ((x0 * y0) >>> 32);
+            long w1 = (t & 0xFFFFFFFFL) + x0 * y1;
+            return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+        }
+    }
+
+    // The mod-key residue of an arbitrarily long byte string read as one big-endian unsigned number, fed
+    // incrementally. Horner's rule runs over 64-bit words as two 32-bit steps, r = (r * 2^32 + half) mod m,
+    // which stays below 2^63 for any int key. Chunks may be any size; no state is carried besides r.
+    static final class PayloadChecksum {
+        // Files at least this large are memory-mapped instead of read through a heap buffer.
+        static final long MAP_THRESHOLD = 1L << 20;
+        static final long MAP_CHUNK = 1L << 30;
+
+        private final PreparedModulus modulus;
+        private long r;
+        private long length;
+
+        PayloadChecksum(int key) {
+            this.modulus = PreparedModulus.of(key);
+        }
+
+        PayloadChecksum update(byte[] data, int off, int len) {
+            return update(ByteBuffer.wrap(data, off, len));
+        }
+
+        // Consumes the buffer's remaining bytes.
+        PayloadChecksum update(ByteBuffer buf) {
+            PreparedModulus m = modulus;
+            long acc = r;
+            length += buf.remaining();
+            if (buf.order() != ByteOrder.BIG_ENDIAN) {
+                buf = buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+            }
+            while (buf.remaining() >= 8) {
+                long word = buf.getLong();
+                acc = m.reduce63((acc << 32) | (word >>> 32));
+                acc = m.reduce63((acc << 32) | (word & 0xFFFFFFFFL));
+            }
+            while (buf.hasRemaining()) {
+                acc = m.reduce63((acc << 8) | (buf.get() & 0xFF));
+            }
+            r = acc;
+            return this;
+        }
+
+        PayloadChecksum update(InputStream in, byte[] scratch) throws IOException {
+            int n;
+            while ((n = in.read(scratch)) >= 0) {
+                update(scratch, 0, n);
+            }
+            return this;
+        }
+
+        long value() {
+            return r;
+        }
+
+        long length() {
+            return length;
+        }
+
+        static long ofFile(Path path, int key) throws IOException {
+            PayloadChecksum checksum = new PayloadChecksum(key);
+            if (Files.size(path) < MAP_THRESHOLD) {
+                byte[] bytes = Files.readAllBytes(path);
+                return checksum.update(bytes, 0, bytes.length).value();
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                // Map in 1 GiB windows so multi-GB files never touch the heap.
+                for (long pos = 0; pos < size; pos += MAP_CHUNK) {
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_CHUNK, size - pos));
+                    checksum.update(window);
+                }
+            }
+            return checksum.value();
+        }
+    }
+
+    // Computes the same residue as PayloadChecksum by splitting the input across a ForkJoinPool and folding the
+    // partial results with r = r_left * (256^len_right mod m) + r_right (mod m). Powers of 256 come from a table
+    // of 256^(2^k) mod m built once per key, so any shift costs at most 64 multiplies.
+    static final class ParallelPayloadChecksum {
+        // Chunks below this size are not split further; large enough that fork/join overhead is noise.
+        static final int LEAF_BYTES = 1 << 20;
+
+        private final int key;
+        private final PreparedModulus modulus;
+        private final long[] squarePowers = new long[64];
+
+        ParallelPayloadChecksum(int key) {
+            this.key = key;
+            this.modulus = PreparedModulus.of(key);
+            long p = modulus.reduce63(256);
+            for (int k = 0; k < squarePowers.length; k++) {
+                squarePowers[k] = p;
+                p = modulus.reduce63(p * p);
+            }
+        }
+
+        // 256^exponent mod m; factors stay at or below 2^31, so every product fits below 2^63.
+        long powerOf256(long exponent) {
+            long result = modulus.reduce63(1);
+            for (int k = 0; exponent != 0; k++, exponent >>>= 1) {
+                if ((exponent & 1) != 0) result = modulus.reduce63(result * squarePowers[k]);
+            }
+            return result;
+        }
+
+        long combine(long left, long right, long rightLength) {
+            return modulus.reduce63(left * powerOf256(rightLength) + right);
+        }
+
+        // Residue of the buffer's remaining bytes; the buffer's position is not changed.
+        long checksum(ByteBuffer buf, ForkJoinPool pool) {
+            return pool.invoke(new Chunk(buf, buf.position(), buf.limit()));
+        }
+
+        long checksum(byte[] data, int off, int len, ForkJoinPool pool) {
+            return checksum(ByteBuffer.wrap(data, off, len), pool);
+        }
+
+        static long ofFile(Path path, int key, ForkJoinPool pool) throws IOException {
+            if (Files.size(path) < PayloadChecksum.MAP_THRESHOLD) {
+                return PayloadChecksum.ofFile(path, key);
+            }
+            ParallelPayloadChecksum engine = new ParallelPayloadChecksum(key);
+            long r = 0;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long pos = 0; pos < size; pos += PayloadChecksum.MAP_CHUNK) {
+                    long length = Math.min(PayloadChecksum.MAP_CHUNK, size - pos);
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                    r = engine.combine(r, engine.checksum(window, pool), length);
+                }
+            }
+            return r;
+        }
+
+        @SuppressWarnings("serial") // never serialized
+        private final class Chunk extends RecursiveTask<Long> {
+            private final ByteBuffer buf;
+            private final int from;
+            private final int to;
+
+            Chunk(ByteBuffer buf, int from, int to) {
+                this.buf = buf;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected Long compute() {
+                if (to - from <= LEAF_BYTES) {
+                    ByteBuffer slice = buf.duplicate();
+                    slice.limit(to);
+                    slice.position(from);
+                    return new PayloadChecksum(key).update(slice).value();
+                }
+                int mid = from + (to - from) / 2;
+                Chunk left = new Chunk(buf, from, mid);
+                left.fork();
+                long right = new Chunk(buf, mid, to).compute();
+                return combine(left.join(), right, to - mid);
+            }
+        }
+    }
+
+    // Rabin-Karp over the PayloadChecksum residue: the residue of every `window`-byte window of a stream, each
+    // read as a big-endian number, updated in O(1) per byte as the window slides:
+    //   r' = (r * 256 + in - out * 256^window) mod m
+    // A window's residue equals PayloadChecksum over the same bytes. Input may arrive in any number of pieces;
+    // the last window's bytes are carried over so the next piece continues where this one stopped.
+    static final class RollingChecksum {
+        private final long m;
+        // floor(2^54 / m). A slide step never exceeds 257m, so one multiply-shift gets the quotient to within one.
+        private final long multiplier;
+        private final int window;
+        // removal[b] = m - (b * 256^window mod m): adding it takes an outgoing byte b back off a shifted residue.
+        private final long[] removal = new long[256];
+        // The last `window` bytes seen; ring[position % window] is the oldest once the window is full.
+        private final byte[] ring;
+        private long r;
+        private long position;
+
+        RollingChecksum(int key, int window) {
+            if (window <= 0) {
+                throw new IllegalArgumentException("Window must be at least one byte");
+            }
+            PreparedModulus modulus = PreparedModulus.of(key);
+            this.m = modulus.modulus;
+            this.multiplier = (1L << 54) / m;
+            this.window = window;
+            this.ring = new byte[window];
+            long power = new ParallelPayloadChecksum(key).powerOf256(window);
+            for (int b = 0; b < 256; b++) {
+                removal[b] = m - modulus.reduce63(b * power);
+            }
+        }
+
+        // Slides over data[off, off + len). For every full window whose residue equals target, calls onMatch with
+        // the stream offset at which that window starts.
+        void scan(byte[] data, int off, int len, long target, LongConsumer onMatch) {
+            scan(ByteBuffer.wrap(data, off, len), target, onMatch);
+        }
+
+        // Consumes the buffer's remaining bytes.
+        void scan(ByteBuffer buf, long target, LongConsumer onMatch) {
+            long[] removal = this.removal;
+            int w = window;
+            int start = buf.position();
+            int end = buf.limit();
+            long acc = r;
+            long pos = position;
+            int i = start;
+
+            // Until the window is full, and while the outgoing bytes still sit in the ring from earlier input.
+            for (; i < end && i - start < w; i++, pos++) {
+                int ringIndex = (int) (pos % w);
+                acc = pos < w ? step((acc << 8) | (buf.get(i) & 0xFF))
+                        : step((acc << 8) + (buf.get(i) & 0xFF) + removal[ring[ringIndex] & 0xFF]);
+                if (pos >= w - 1 && acc == target) onMatch.accept(pos - w + 1);
+            }
+            // Steady state: the outgoing byte is `w` back in this same buffer.
+            for (; i < end; i++, pos++) {
+                acc = step((acc << 8) + (buf.get(i) & 0xFF) + removal[buf.get(i - w) & 0xFF]);
+                if (acc == target) onMatch.accept(pos - w + 1);
+            }
+
+            // Keep the last w bytes (fewer if the stream is shorter) for the next call.
+            int tail = Math.min(end - start, w);
+            for (long p = pos - tail; p < pos; p++) {
+                ring[(int) (p % w)] = buf.get((int) (end - (pos - p)));
+            }
+            r = acc;
+            position = pos;
+            buf.position(end);
+        }
+
+        // x mod m for 0 <= x < 257m.
+        private long step(long x) {
+            long r = x - ((x * multiplier) >>> 54) * m;
+            return r >= m ? r - m : r;
+        }
+
+        // Residue of the current window; meaningful once at least `window` bytes have been scanned.
+        long value() {
+            return r;
+        }
+
+        long position() {
+            return position;
+        }
+
+        // Scans a whole file, memory-mapping large ones in 1 GiB pieces.
+        static long scanFile(Path path, int key, int window, long target, LongConsumer onMatch) throws IOException {
+            RollingChecksum rolling = new RollingChecksum(key, window);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < PayloadChecksum.MAP_THRESHOLD) {
+                    byte[] bytes = Files.readAllBytes(path);
+                    rolling.scan(bytes, 0, bytes.length, target, onMatch);
+                    return rolling.position();
+                }
+                for (long pos = 0; pos < size; pos += PayloadChecksum.MAP_CHUNK) {
+                    rolling.scan(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(PayloadChecksum.MAP_CHUNK, size - pos)),
+                            target, onMatch);
+                }
+            }
+            return rolling.position();
+        }
+    }
+
+    // A checksum that verify and the HTTP handlers can dispatch to by name (algo=...). Values are unsigned and
+    // at most 64 bits wide. Extra implementations can be registered through java.util.ServiceLoader.
+    interface ChecksumAlgorithm {
+        String name();
+
+        // Whether the key/modulus parameter affects the result; keyless algorithms accept any key, including 0.
+        boolean usesKey();
+
+        long checksum(byte[] data, int off, int len, int key);
+
+        // The int form checksums the four big-endian bytes of data unless an algorithm defines it directly.
+        default long checksum(int data, int key) {
+            byte[] bytes = {(byte) (data >>> 24), (byte) (data >>> 16), (byte) (data >>> 8), (byte) data};
+            return checksum(bytes, 0, 4, key);
+        }
+    }
+
+    static final class ChecksumAlgorithms {
+        // The original data mod key; a byte array is read as one big-endian unsigned number.
+        static final ChecksumAlgorithm MOD = new ChecksumAlgorithm() {
+            @Override
+            public String name() {
+                return "mod";
+            }
+
+            @Override
+            public boolean usesKey() {
+                return true;
+            }
+
+            @Override
+            public long checksum(int data, int key) {
+                return generateChecksum(data, key);
+            }
+
+            @Override
+            public long checksum(byte[] data, int off, int len, int key) {
+                return new PayloadChecksum(key).update(data, off, len).value();
+            }
+        };
+
+        private static final Map<String, ChecksumAlgorithm> BY_NAME = new LinkedHashMap<>();
+        // Registration order, for compact references to an algorithm (the audit log stores the index).
+        private static final ChecksumAlgorithm[] BY_INDEX;
+
+        static {
+            register(MOD);
+            register(new ZipChecksum("crc32c", crc32cFactory()));
+            register(new ZipChecksum("adler32", Adler32::new));
+            register(new Fletcher32());
+            register(new Fletcher64());
+            register(new ResidueChecksum(65521, 65519, 65497, 65479));
+            for (ChecksumAlgorithm extra : ServiceLoader.load(ChecksumAlgorithm.class)) {
+                register(extra);
+            }
+            BY_INDEX = BY_NAME.values().toArray(new ChecksumAlgorithm[0]);
+        }
+
+        private ChecksumAlgorithms() {
+        }
+
+        private static void register(ChecksumAlgorithm algorithm) {
+            BY_NAME.putIfAbsent(algorithm.name().toLowerCase(), algorithm);
+        }
+
+        // Returns MOD for a missing name and null for an unknown one.
+        static ChecksumAlgorithm forName(String name) {
+            if (name == null || name.trim().isEmpty()) return MOD;
+            return BY_NAME.get(name.trim().toLowerCase());
+        }
+
+        static Collection<String> names() {
+            return BY_NAME.keySet();
+        }
+
+        static Collection<ChecksumAlgorithm> all() {
+            return BY_NAME.values();
+        }
+
+        // Position in all(); MOD is 0.
+        static int indexOf(ChecksumAlgorithm algorithm) {
+            for (int i = 0; i < BY_INDEX.length; i++) {
+                if (BY_INDEX[i] == algorithm) return i;
+            }
+            return -1;
+        }
+
+        // java.util.zip.CRC32C (hardware-accelerated) exists from Java 9; older runtimes get the table version.
+        private static Supplier<Checksum> crc32cFactory() {
+            try {
+                final Class<? extends Checksum> type = Class.forName("java.util.zip.CRC32C").asSubclass(Checksum.class);
+                type.getConstructor().newInstance();
+                return () -> {
+                    try {
+                        return type.getConstructor().newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return SoftwareCrc32c::new;
+            }
+        }
+
+        // Adapts a java.util.zip.Checksum; each thread reuses one instance and a scratch word buffer.
+        static final class ZipChecksum implements ChecksumAlgorithm {
+            private final String name;
+            private final ThreadLocal<Scratch> perThread;
+
+            ZipChecksum(String name, Supplier<Checksum> factory) {
+                this.name = name;
+                this.perThread = ThreadLocal.withInitial(() -> new Scratch(factory.get()));
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public boolean usesKey() {
+                return false;
+            }
+
+            @Override
+            public long checksum(int data, int key) {
+                Scratch scratch = perThread.get();
+                byte[] word = scratch.word;
+                word[0] = (byte) (data >>> 24);
+                word[1] = (byte) (data >>> 16);
+                word[2] = (byte) (data >>> 8);
+                word[3] = (byte) data;
+                // One array update is far cheaper than four update(int) calls, which may each cross into native code.
+                scratch.checksum.reset();
+                scratch.checksum.update(word, 0, 4);
+                return scratch.checksum.getValue();
+            }
+
+            @Override
+            public long checksum(byte[] data, int off, int len, int key) {
+                Checksum c = perThread.get().checksum;
+                c.reset();
+                c.update(data, off, len);
+                return c.getValue();
+            }
+
+            private static final class Scratch {
+                final Checksum checksum;
+                final byte[] word = new byte[4];
+
+                Scratch(Checksum checksum) {
+                    this.checksum = checksum;
+                }
+            }
+        }
+
+        static final class SoftwareCrc32c implements Checksum {
+            private static final int[] TABLE = new int[256];
+
+            static {
+                for (int n = 0; n < 256; n++) {
+                    int c = n;
+                    for (int k = 0; k < 8; k++) {
+                        c = (c & 1) != 0 ? (c >>> 1) ^ 0x82F63B78 : c >>> 1;
+                    }
+                    TABLE[n] = c;
+                }
+            }
+
+            private int crc = 0xFFFFFFFF;
+
+            @Override
+            public void update(int b) {
+                crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+            }
+
+            @Override
+            public void update(byte[] b, int off, int len) {
+                int c = crc;
+                for (int i = off; i < off + len; i++) {
+                    c = (c >>> 8) ^ TABLE[(c ^ b[i]) & 0xFF];
+                }
+                crc = c;
+            }
+
+            @Override
+            public long getValue() {
+                return ~crc & 0xFFFFFFFFL;
+            }
+
+            @Override
+            public void reset() {
+                crc = 0xFFFFFFFF;
+            }
+        }
+
+        // Fletcher-32 over big-endian 16-bit words (a trailing odd byte is zero-padded), sums mod 65535.
+        static final class Fletcher32 implements ChecksumAlgorithm {
+            // Words that can be summed before the 64-bit accumulators need reducing.
+            private static final int BLOCK_WORDS = 4096;
+
+            @Override
+            public String name() {
+                return "fletcher32";
+            }
+
+            @Override
+            public boolean usesKey() {
+                return false;
+            }
+
+            @Override
+            public long checksum(int data, int key) {
+                long c0 = (data >>> 16) % 65535;
+                long c1 = c0;
+                c0 = (c0 + (data & 0xFFFF)) % 65535;
+                c1 = (c1 + c0) % 65535;
+                return (c1 << 16) | c0;
+            }
+
+            @Override
+            public long checksum(byte[] data, int off, int len, int key) {
+                long c0 = 0;
+                long c1 = 0;
+                int end = off + len;
+                int i = off;
+                while (i + 1 < end) {
+                    int blockEnd = Math.min(end - 1, i + 2 * BLOCK_WORDS);
+                    for (; i < blockEnd; i += 2) {
+                        c0 += ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+                        c1 += c0;
+                    }
+                    c0 %= 65535;
+                    c1 %= 65535;
+                }
+                if (i < end) {
+                    c0 = (c0 + ((data[i] & 0xFF) << 8)) % 65535;
+                    c1 = (c1 + c0) % 65535;
+                }
+                return (c1 << 16) | c0;
+            }
+        }
+
+        // Fletcher-64 over big-endian 32-bit words (a trailing partial word is zero-padded), sums mod 2^32 - 1.
+        static final class Fletcher64 implements ChecksumAlgorithm {
+            private static final long MOD32 = 0xFFFFFFFFL;
+            private static final int BLOCK_WORDS = 1024;
+
+            @Override
+            public String name() {
+                return "fletcher64";
+            }
+
+            @Override
+            public boolean usesKey() {
+                return false;
+            }
+
+            @Override
+            public long checksum(int data, int key) {
+                long c0 = (data & MOD32) % MOD32;
+                return (c0 << 32) | c0;
+            }
+
+            @Override
+            public long checksum(byte[] data, int off, int len, int key) {
+                long c0 = 0;
+                long c1 = 0;
+                int end = off + len;
+                int i = off;
+                while (i + 3 < end) {
+                    int blockEnd = Math.min(end - 3, i + 4 * BLOCK_WORDS);
+                    for (; i < blockEnd; i += 4) {
+                        c0 += ((data[i] & 0xFFL) << 24) | ((data[i + 1] & 0xFF) << 16) | ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+                        c1 += c0;
+                    }
+                    c0 %= MOD32;
+                    c1 %= MOD32;
+                }
+                if (i < end) {
+                    long word = 0;
+                    for (int shift = 24; i < end; i++, shift -= 8) {
+                        word |= (data[i] & 0xFFL) << shift;
+                    }
+                    c0 = (c0 + word) % MOD32;
+                    c1 = (c1 + c0) % MOD32;
+                }
+                return (c1 << 32) | c0;
+            }
+        }
+
+        // Residue number system checksum: the value mod each of four pairwise-coprime 16-bit moduli, packed into
+        // 64 bits. Any change smaller than the product of the moduli (about 2^64) is detected.
+        static final class ResidueChecksum implements ChecksumAlgorithm {
+            private final long m0;
+            private final long m1;
+            private final long m2;
+            private final long m3;
+
+            ResidueChecksum(long m0, long m1, long m2, long m3) {
+                this.m0 = m0;
+                this.m1 = m1;
+                this.m2 = m2;
+                this.m3 = m3;
+            }
+
+            @Override
+            public String name() {
+                return "rns";
+            }
+
+            @Override
+            public boolean usesKey() {
+                return false;
+            }
 
-            int modulus = Math.abs(prime);
-            int remainder = Math.floorMod(data, modulus);
-            int quotient = Math.floorDiv(data, modulus);
-            String json = "{" +
-                    "\"ok\":true," +
-                    "\"data\":" + data + "," +
-                    "\"prime\":" + prime + "," +
-                    "\"quotient\":" + quotient + "," +
-                    "\"remainder\":" + remainder + 
-                    "}";
-            VerifyHandler.writeJson(exchange, 200, json);
-        }
-    }
+            @Override
+            public long checksum(int data, int key) {
+                return (Math.floorMod(data, m0) << 48) | (Math.floorMod(data, m1) << 32)
+                        | (Math.floorMod(data, m2) << 16) | Math.floorMod(data, m3);
+            }
 
-    static final class HttpUtil {
-        static String readUtf8Body(HttpExchange exchange) throws IOException {
-            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-            byte[] buf = new byte[4096];
-            int n;
-            while ((n = exchange.getRequestBody().read(buf)) >= 0) {
-                if (n == 0) break;
-                baos.write(buf, 0, n);
+            @Override
+            public long checksum(byte[] data, int off, int len, int key) {
+                long r0 = 0;
+                long r1 = 0;
+                long r2 = 0;
+                long r3 = 0;
+                int end = off + len;
+                int i = off;
+                // Horner's rule over 32-bit words: r = (r * 2^32 + word) mod m stays below 2^48.
+                for (; i + 3 < end; i += 4) {
+                    long word = ((data[i] & 0xFFL) << 24) | ((data[i + 1] & 0xFF) << 16) | ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+                    r0 = ((r0 << 32) | word) % m0;
+                    r1 = ((r1 << 32) | word) % m1;
+                    r2 = ((r2 << 32) | word) % m2;
+                    r3 = ((r3 << 32) | word) % m3;
+                }
+                for (; i < end; i++) {
+                    int b = data[i] & 0xFF;
+                    r0 = ((r0 << 8) | b) % m0;
+                    r1 = ((r1 << 8) | b) % m1;
+                    r2 = ((r2 << 8) | b) % m2;
+                    r3 = ((r3 << 8) | b) % m3;
+                }
+                return (r0 << 48) | (r1 << 32) | (r2 << 16) | r3;
             }
-            return new String(baos.toByteArray(), StandardCharsets.UTF_8);
         }
     }
 
-    static final class JsonUtil {
-        static Integer getInt(String json, String key) {
-            if (json == null || key == null) return null;
-            Pattern p = Pattern.compile("\\\"" + Pattern.quote(key) + "\\\"\\s*:\\s*(-?\\d+)");
-            Matcher m = p.matcher(json);
-            if (!m.find()) return null;
-            return safeParseInt(m.group(1));
-        }
-    }
+    static final class VerificationResult {
+        final String algorithm;
+        final int sentData;
+        final int prime;
+        final int receivedData;
+        final long senderChecksum;
+        final long receiverChecksum;
 
-    private static Integer safeParseInt(String s) {
-        if (s == null) return null;
-        try {
-            return Integer.parseInt(s.trim());
-        } catch (NumberFormatException ex) {
-            return null;
+        VerificationResult(int sentData, int prime, int receivedData, int senderChecksum, int receiverChecksum) {
+            this(ChecksumAlgorithms.MOD.name(), sentData, prime, receivedData, senderChecksum, receiverChecksum);
         }
-    }
 
-    static final class StaticHandler implements HttpHandler {
-        private final Path webRoot;
+        VerificationResult(String algorithm, int sentData, int prime, int receivedData, long senderChecksum, long receiverChecksum) {
+            this.algorithm = algorithm;
+            this.sentData = sentData;
+            this.prime = prime;
+            this.receivedData = receivedData;
+            this.senderChecksum = senderChecksum;
+            this.receiverChecksum = receiverChecksum;
+        }
 
-        StaticHandler(Path webRoot) {
-            this.webRoot = webRoot;
+        boolean isOk() {
+            return senderChecksum == receiverChecksum;
         }
+    }
 
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
-                exchange.sendResponseHeaders(405, -1);
-                return;
+    // Verification with the residues of several pairwise-coprime keys. The syndromes (received - sent mod each key)
+    // are the error's residues, and the Chinese Remainder Theorem combines them into the error mod the product of
+    // the keys. When that product is at least 2^32 the residues alone rebuild the sent value, so any error is
+    // corrected; below that, errors of the web UI's kinds (an added delta, one changed decimal digit, one flipped
+    // bit) are looked up by their combined syndrome, as long as no two of them share one.
+    static final class CrtKeySet {
+        static final int MAX_KEYS = 8;
+        // Largest |received - sent| that counts as an added delta when the keys cannot rebuild the value.
+        static final int MAX_DELTA = 1024;
+        private static final long AMBIGUOUS = Long.MIN_VALUE;
+        // Small direct-mapped cache, as for PreparedModulus; entries are immutable.
+        private static final CrtKeySet[] CACHE = new CrtKeySet[64];
+
+        final int[] keys;
+        final long[] moduli;
+        final long product;
+        // inverse[i] = (m0 * ... * m(i-1))^-1 mod mi, for Garner's mixed-radix form of the CRT.
+        private final long[] inverse;
+        // The error model's syndromes mod product, sorted, and the error each belongs to (AMBIGUOUS when shared).
+        // Empty when the product is large enough to rebuild the value.
+        private final long[] modelSyndromes;
+        private final long[] modelErrors;
+
+        private CrtKeySet(int[] keys) {
+            if (keys.length < 2 || keys.length > MAX_KEYS) {
+                throw new IllegalArgumentException("Expected 2 to " + MAX_KEYS + " keys");
             }
-
-            String rawPath = exchange.getRequestURI().getPath();
-            String rel = (rawPath == null || rawPath.isEmpty() || "/".equals(rawPath)) ? "/index.html" : rawPath;
-            Path target = webRoot.resolve(rel.substring(1)).normalize();
-
-            if (!target.startsWith(webRoot) || Files.isDirectory(target) || !Files.exists(target)) {
-                // Fallback to index for SPA-ish navigation.
-                target = webRoot.resolve("index.html");
-                if (!Files.exists(target)) {
-                    byte[] notFound = "Missing web/index.html".getBytes(StandardCharsets.UTF_8);
-                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
-                    exchange.sendResponseHeaders(404, notFound.length);
-                    try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(notFound);
+            this.keys = keys.clone();
+            this.moduli = new long[keys.length];
+            this.inverse = new long[keys.length];
+            long p = 1;
+            for (int i = 0; i < keys.length; i++) {
+                long m = Math.abs((long) keys[i]);
+                if (m < 2) {
+                    throw new IllegalArgumentException("Keys must be at least 2 in absolute value");
+                }
+                for (int j = 0; j < i; j++) {
+                    if (BigInteger.valueOf(m).gcd(BigInteger.valueOf(moduli[j])).compareTo(BigInteger.ONE) != 0) {
+                        throw new IllegalArgumentException("Keys must be pairwise coprime (" + keys[j] + " and " + keys[i] + " are not)");
                     }
-                    return;
                 }
+                if (p > (1L << 62) / m) {
+                    throw new IllegalArgumentException("The product of the keys must be below 2^62");
+                }
+                moduli[i] = m;
+                inverse[i] = i == 0 ? 0 : BigInteger.valueOf(p % m).modInverse(BigInteger.valueOf(m)).longValue();
+                p *= m;
             }
+            this.product = p;
 
-            byte[] bytes = Files.readAllBytes(target);
-            exchange.getResponseHeaders().set("Content-Type", contentType(target));
-            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
-            exchange.sendResponseHeaders(200, bytes.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(bytes);
+            if (rebuildsValue()) {
+                modelSyndromes = new long[0];
+                modelErrors = new long[0];
+                return;
+            }
+            // Sort (syndrome, index) pairs packed into longs; syndromes are below 2^32 here.
+            long[] errors = errorModel();
+            long[] packed = new long[errors.length];
+            for (int i = 0; i < errors.length; i++) {
+                packed[i] = (Math.floorMod(errors[i], product) << 16) | i;
+            }
+            Arrays.sort(packed);
+            long[] syndromes = new long[packed.length];
+            long[] owners = new long[packed.length];
+            int n = 0;
+            for (long entry : packed) {
+                long syndrome = entry >>> 16;
+                long error = errors[(int) (entry & 0xFFFF)];
+                if (n > 0 && syndromes[n - 1] == syndrome) {
+                    owners[n - 1] = AMBIGUOUS;
+                } else {
+                    syndromes[n] = syndrome;
+                    owners[n++] = error;
+                }
             }
+            modelSyndromes = Arrays.copyOf(syndromes, n);
+            modelErrors = Arrays.copyOf(owners, n);
         }
 
-        private static String contentType(Path p) {
-            String name = p.getFileName().toString().toLowerCase();
-            if (name.endsWith(".html")) return "text/html; charset=utf-8";
-            if (name.endsWith(".css")) return "text/css; charset=utf-8";
-            if (name.endsWith(".js")) return "application/javascript; charset=utf-8";
-            if (name.endsWith(".svg")) return "image/svg+xml";
-            return "application/octet-stream";
+        static CrtKeySet of(int[] keys) {
+            int slot = (Arrays.hashCode(keys) * 0x9E3779B9) >>> 26;
+            CrtKeySet set = CACHE[slot];
+            if (set == null || !Arrays.equals(set.keys, keys)) {
+                set = new CrtKeySet(keys);
+                CACHE[slot] = set;
+            }
+            return set;
         }
-    }
-
-    static final class QueryParams {
-        private final String raw;
 
-        private QueryParams(String raw) {
-            this.raw = raw == null ? "" : raw;
+        // Every int has its own residues, so they determine the sent value without the received one.
+        boolean rebuildsValue() {
+            return product >= 1L << 32;
         }
 
-        static QueryParams parse(String rawQuery) {
-            return new QueryParams(rawQuery);
+        // The distinct nonzero errors that can be corrected without rebuilding: |delta| <= MAX_DELTA,
+        // +-d * 10^p for one decimal digit, and +-2^k for one bit, sorted.
+        static long[] errorModel() {
+            TreeSet<Long> errors = new TreeSet<>();
+            for (long d = 1; d <= MAX_DELTA; d++) {
+                errors.add(d);
+                errors.add(-d);
+            }
+            for (long place = 1; place <= 1_000_000_000L; place *= 10) {
+                for (long d = 1; d <= 9; d++) {
+                    errors.add(d * place);
+                    errors.add(-d * place);
+                }
+            }
+            for (int k = 0; k < 32; k++) {
+                errors.add(1L << k);
+                errors.add(-(1L << k));
+            }
+            long[] out = new long[errors.size()];
+            int i = 0;
+            for (long e : errors) out[i++] = e;
+            return out;
         }
 
-        String get(String key) {
-            if (key == null || key.isEmpty() || raw.isEmpty()) return null;
-            String[] parts = raw.split("&");
-            for (String part : parts) {
-                int idx = part.indexOf('=');
-                if (idx <= 0) continue;
-                String k = decode(part.substring(0, idx));
-                if (!key.equals(k)) continue;
-                return decode(part.substring(idx + 1));
+        long[] residues(int value) {
+            long[] r = new long[moduli.length];
+            for (int i = 0; i < r.length; i++) {
+                r[i] = Math.floorMod(value, moduli[i]);
             }
-            return null;
+            return r;
         }
 
-        Integer getInt(String key) {
-            String v = get(key);
-            if (v == null || v.trim().isEmpty()) return null;
-            try {
-                return Integer.parseInt(v.trim());
-            } catch (NumberFormatException ex) {
-                return null;
+        // The x in [0, product) with x = residues[i] mod moduli[i] for all i; a handful of multiplies.
+        long combine(long[] residues) {
+            long x = residues[0];
+            long p = moduli[0];
+            for (int i = 1; i < moduli.length; i++) {
+                long m = moduli[i];
+                long t = Math.floorMod(residues[i] - x % m, m) * inverse[i] % m;
+                x += t * p;
+                p *= m;
             }
+            return x;
         }
 
-        private static String decode(String s) {
-            try {
-                return URLDecoder.decode(s, "UTF-8");
-            } catch (Exception ex) {
-                return s;
+        // senderResidues must hold one value in [0, moduli[i]) per key.
+        CrtVerification verify(long[] senderResidues, int receivedData) {
+            long[] syndromes = new long[moduli.length];
+            boolean detected = false;
+            for (int i = 0; i < syndromes.length; i++) {
+                syndromes[i] = Math.floorMod(receivedData - senderResidues[i], moduli[i]);
+                detected |= syndromes[i] != 0;
+            }
+            if (!detected) {
+                return new CrtVerification(this, senderResidues, receivedData, syndromes, false, receivedData);
             }
-        }
-    }
 
-    private static void setModernLookAndFeel() {
-        try {
-            for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
-                if ("Nimbus".equals(info.getName())) {
-                    UIManager.setLookAndFeel(info.getClassName());
-                    break;
+            long sent;
+            if (rebuildsValue()) {
+                long x = combine(senderResidues);
+                sent = x <= Integer.MAX_VALUE ? x : x - product;
+            } else {
+                int i = Arrays.binarySearch(modelSyndromes, combine(syndromes));
+                if (i < 0 || modelErrors[i] == AMBIGUOUS) {
+                    return new CrtVerification(this, senderResidues, receivedData, syndromes, true, null);
                 }
+                sent = (long) receivedData - modelErrors[i];
             }
-        } catch (Exception ignored) {
-            // Fallback to default look and feel
+            boolean valid = sent >= Integer.MIN_VALUE && sent <= Integer.MAX_VALUE;
+            return new CrtVerification(this, senderResidues, receivedData, syndromes, true, valid ? (Integer) (int) sent : null);
         }
-
-        Font base = new Font("Segoe UI", Font.PLAIN, 13);
-        UIManager.put("defaultFont", base);
-        UIManager.put("Label.font", base);
-        UIManager.put("Button.font", base);
-        UIManager.put("TextField.font", base);
-        UIManager.put("TextArea.font", base);
     }
 
-    static final class VerificationResult {
-        final int sentData;
-        final int prime;
+    static final class CrtVerification {
+        final CrtKeySet keySet;
+        final long[] senderResidues;
         final int receivedData;
-        final int senderChecksum;
-        final int receiverChecksum;
-
-        VerificationResult(int sentData, int prime, int receivedData, int senderChecksum, int receiverChecksum) {
-            this.sentData = sentData;
-            this.prime = prime;
+        final long[] syndromes;
+        final boolean detected;
+        // The sent value, when the error could be undone; null otherwise.
+        final Integer correctedData;
+
+        CrtVerification(CrtKeySet keySet, long[] senderResidues, int receivedData, long[] syndromes, boolean detected, Integer correctedData) {
+            this.keySet = keySet;
+            this.senderResidues = senderResidues;
             this.receivedData = receivedData;
-            this.senderChecksum = senderChecksum;
-            this.receiverChecksum = receiverChecksum;
+            this.syndromes = syndromes;
+            this.detected = detected;
+            this.correctedData = correctedData;
         }
 
         boolean isOk() {
-            return senderChecksum == receiverChecksum;
+            return !detected;
+        }
+
+        // "digit" (position = decimal place, 0 for units), "bit" (position = bit index), "delta" or "other";
+        // null when nothing was corrected.
+        String errorKind() {
+            if (!detected || correctedData == null) return null;
+            if (digitPosition() >= 0) return "digit";
+            if (Integer.bitCount(correctedData ^ receivedData) == 1) return "bit";
+            if (Math.abs(error()) <= CrtKeySet.MAX_DELTA) return "delta";
+            return "other";
+        }
+
+        int position() {
+            String kind = errorKind();
+            if ("digit".equals(kind)) return digitPosition();
+            if ("bit".equals(kind)) return Integer.numberOfTrailingZeros(correctedData ^ receivedData);
+            return -1;
+        }
+
+        // received - sent.
+        long error() {
+            return (long) receivedData - correctedData;
+        }
+
+        // The decimal place of the one digit in which sent and received differ, or -1.
+        private int digitPosition() {
+            if ((correctedData < 0) != (receivedData < 0)) return -1;
+            String a = Long.toString(Math.abs((long) correctedData));
+            String b = Long.toString(Math.abs((long) receivedData));
+            if (a.length() != b.length()) return -1;
+            int differing = -1;
+            for (int i = 0; i < a.length(); i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    if (differing >= 0) return -1;
+                    differing = i;
+                }
+            }
+            return differing < 0 ? -1 : a.length() - 1 - differing;
         }
     }
 
@@ -474,6 +5884,26 @@ public class ErrorDetectionNumberTheory {
         private final JLabel statusPill = new JLabel("Step 1: Enter data + key/modulus");
         private Integer computedSenderChecksum = null;
 
+        // Files tab.
+        private final JRadioButton rowsMode = new JRadioButton("Rows file (sentData, key/modulus, receivedData per line)", true);
+        private final JRadioButton pairMode = new JRadioButton("Sent + received files (one value per line)");
+        private final JLabel rowsFileLabel = new JLabel("No file chosen");
+        private final JLabel sentFileLabel = new JLabel("No file chosen");
+        private final JLabel receivedFileLabel = new JLabel("No file chosen");
+        private final JTextField bulkKeyField = new JTextField(10);
+        private final JButton verifyFilesButton = new JButton("Verify files");
+        private final JButton cancelButton = new JButton("Cancel");
+        private final JProgressBar bulkProgress = new JProgressBar(0, 1000);
+        private final JLabel bulkStatus = new JLabel("Choose a rows file, or a sent and a received file.");
+        private final MismatchTableModel mismatchModel = new MismatchTableModel();
+        private Path rowsFile;
+        private Path sentFile;
+        private Path receivedFile;
+        private File lastDirectory;
+        private BulkVerifyWorker worker;
+        private long bulkTotalBytes;
+        private BulkVerifyWorker.Chunk lastChunk;
+
         ErrorDetectionUI() {
             super("Error Detection (Number Theory Modulo Checksum)");
             setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
@@ -483,6 +5913,7 @@ public class ErrorDetectionNumberTheory {
             installIntegerFilter(dataField);
             installIntegerFilter(primeField);
             installIntegerFilter(receivedField);
+            installIntegerFilter(bulkKeyField);
 
             setContentPane(buildRoot());
         }
@@ -491,8 +5922,12 @@ public class ErrorDetectionNumberTheory {
             JPanel root = new JPanel(new BorderLayout(16, 16));
             root.setBorder(new EmptyBorder(18, 18, 18, 18));
 
+            JTabbedPane tabs = new JTabbedPane();
+            tabs.addTab("Single value", buildMain());
+            tabs.addTab("Files", buildFilesPanel());
+
             root.add(buildHeader(), BorderLayout.NORTH);
-            root.add(buildMain(), BorderLayout.CENTER);
+            root.add(tabs, BorderLayout.CENTER);
             root.add(buildFooter(), BorderLayout.SOUTH);
 
             updateStatusNeutral();
@@ -712,6 +6147,208 @@ public class ErrorDetectionNumberTheory {
             return receiver;
         }
 
+        private JComponent buildFilesPanel() {
+            JPanel input = sectionPanel("Input");
+            ButtonGroup modes = new ButtonGroup();
+            modes.add(rowsMode);
+            modes.add(pairMode);
+
+            JPanel form = new JPanel(new GridBagLayout());
+            form.setOpaque(false);
+            GridBagConstraints gc = new GridBagConstraints();
+            gc.insets = new Insets(4, 6, 4, 6);
+            gc.anchor = GridBagConstraints.WEST;
+
+            gc.gridx = 0;
+            gc.gridy = 0;
+            gc.gridwidth = 3;
+            form.add(rowsMode, gc);
+            gc.gridwidth = 1;
+            gc.gridy = 1;
+            gc.gridx = 1;
+            form.add(chooseButton("Choose rows file...", f -> {
+                rowsFile = f;
+                rowsFileLabel.setText(f.toString());
+                rowsMode.setSelected(true);
+            }), gc);
+            gc.gridx = 2;
+            form.add(rowsFileLabel, gc);
+
+            gc.gridx = 0;
+            gc.gridy = 2;
+            gc.gridwidth = 3;
+            form.add(pairMode, gc);
+            gc.gridwidth = 1;
+            gc.gridy = 3;
+            gc.gridx = 1;
+            form.add(chooseButton("Choose sent file...", f -> {
+                sentFile = f;
+                sentFileLabel.setText(f.toString());
+                pairMode.setSelected(true);
+            }), gc);
+            gc.gridx = 2;
+            form.add(sentFileLabel, gc);
+            gc.gridy = 4;
+            gc.gridx = 1;
+            form.add(chooseButton("Choose received file...", f -> {
+                receivedFile = f;
+                receivedFileLabel.setText(f.toString());
+                pairMode.setSelected(true);
+            }), gc);
+            gc.gridx = 2;
+            form.add(receivedFileLabel, gc);
+            gc.gridy = 5;
+            gc.gridx = 1;
+            form.add(new JLabel("Key/modulus:"), gc);
+            gc.gridx = 2;
+            form.add(bulkKeyField, gc);
+
+            verifyFilesButton.addActionListener(e -> startBulkVerification());
+            cancelButton.addActionListener(e -> {
+                if (worker != null) worker.cancel(false);
+            });
+            cancelButton.setEnabled(false);
+            JPanel actions = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+            actions.setOpaque(false);
+            actions.add(verifyFilesButton);
+            actions.add(cancelButton);
+
+            input.add(form, BorderLayout.CENTER);
+            input.add(actions, BorderLayout.SOUTH);
+
+            JPanel progress = new JPanel(new BorderLayout(8, 6));
+            progress.setOpaque(false);
+            progress.setBorder(new EmptyBorder(10, 0, 0, 0));
+            bulkProgress.setStringPainted(true);
+            bulkProgress.setString("");
+            progress.add(bulkProgress, BorderLayout.NORTH);
+            progress.add(bulkStatus, BorderLayout.CENTER);
+
+            JPanel top = new JPanel(new BorderLayout());
+            top.setOpaque(false);
+            top.add(input, BorderLayout.CENTER);
+            top.add(progress, BorderLayout.SOUTH);
+
+            JTable table = new JTable(mismatchModel);
+            table.setFillsViewportHeight(true);
+            JPanel mismatches = sectionPanel("Mismatches");
+            mismatches.add(new JScrollPane(table), BorderLayout.CENTER);
+
+            JPanel files = new JPanel(new BorderLayout(8, 12));
+            files.setBorder(new EmptyBorder(10, 10, 10, 10));
+            files.add(top, BorderLayout.NORTH);
+            files.add(mismatches, BorderLayout.CENTER);
+            return files;
+        }
+
+        private JButton chooseButton(String text, Consumer<Path> chosen) {
+            JButton button = new JButton(text);
+            button.addActionListener(e -> {
+                JFileChooser chooser = new JFileChooser(lastDirectory);
+                if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                    lastDirectory = chooser.getCurrentDirectory();
+                    chosen.accept(chooser.getSelectedFile().toPath());
+                }
+            });
+            return button;
+        }
+
+        private void startBulkVerification() {
+            List<Path> inputs;
+            Integer key = null;
+            if (rowsMode.isSelected()) {
+                if (rowsFile == null) {
+                    showError("Choose a rows file first.");
+                    return;
+                }
+                inputs = Collections.singletonList(rowsFile);
+            } else {
+                key = parseIntOrNull(bulkKeyField.getText());
+                if (sentFile == null || receivedFile == null) {
+                    showError("Choose both a sent and a received file.");
+                    return;
+                }
+                if (key == null || key == 0) {
+                    showError("Enter a non-zero key/modulus for the sent and received files.");
+                    return;
+                }
+                inputs = Arrays.asList(sentFile, receivedFile);
+            }
+            long total = 0;
+            try {
+                for (Path input : inputs) total += Files.size(input);
+            } catch (IOException ex) {
+                showError("Cannot read " + ex.getMessage());
+                return;
+            }
+
+            bulkTotalBytes = total;
+            lastChunk = null;
+            mismatchModel.clear();
+            bulkProgress.setValue(0);
+            bulkProgress.setString("0%");
+            bulkStatus.setText("Verifying...");
+            verifyFilesButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            updateStatusInfo("Verifying files...");
+            worker = rowsMode.isSelected()
+                    ? BulkVerifyWorker.ofRows(rowsFile, this::showBulkProgress, this::bulkFinished)
+                    : BulkVerifyWorker.ofPair(sentFile, receivedFile, key, this::showBulkProgress, this::bulkFinished);
+            worker.execute();
+        }
+
+        private void showBulkProgress(BulkVerifyWorker source, BulkVerifyWorker.Chunk chunk) {
+            if (source != worker) return;
+            lastChunk = chunk;
+            mismatchModel.add(chunk);
+            int permille = bulkTotalBytes == 0 ? 1000 : (int) Math.min(1000, chunk.bytes * 1000 / bulkTotalBytes);
+            bulkProgress.setValue(permille);
+            bulkProgress.setString(permille / 10 + "%");
+            bulkStatus.setText(describe(chunk));
+        }
+
+        private String describe(BulkVerifyWorker.Chunk chunk) {
+            double seconds = Math.max(chunk.nanos / 1e9, 1e-9);
+            String listed = chunk.mismatches > mismatchModel.getRowCount()
+                    ? " (first " + String.format("%,d", mismatchModel.getRowCount()) + " listed)" : "";
+            return String.format("%,d rows, %,d mismatches%s, %,d invalid  |  %,.0f rows/s, %.1f MB/s",
+                    chunk.rows, chunk.mismatches, listed, chunk.invalid, chunk.rows / seconds, chunk.bytes / 1e6 / seconds);
+        }
+
+        private void bulkFinished(BulkVerifyWorker finished) {
+            if (finished != worker) return;
+            verifyFilesButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            worker = null;
+            BulkVerifyWorker.Chunk last = lastChunk;
+            lastChunk = null;
+            String summary = last == null ? "" : describe(last);
+            if (finished.isCancelled()) {
+                bulkStatus.setText("Cancelled: " + summary);
+                updateStatusNeutral();
+                return;
+            }
+            String problem;
+            try {
+                problem = finished.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                bulkStatus.setText("Failed: " + cause.getMessage());
+                showError("Verification failed: " + cause.getMessage());
+                return;
+            }
+            bulkProgress.setValue(1000);
+            bulkProgress.setString("100%");
+            bulkStatus.setText(problem == null ? summary : problem + ". " + summary);
+            if (problem != null) {
+                updateStatusBad(problem);
+            } else if (last == null || last.mismatches == 0) {
+                updateStatusOk("Files: No Error Detected");
+            } else {
+                updateStatusBad("Files: Error Detected");
+            }
+        }
+
         private JPanel sectionPanel(String title) {
             JPanel p = new JPanel(new BorderLayout(8, 12));
             p.setBorder(new CompoundBorder(new TitledBorder(title), new EmptyBorder(10, 10, 10, 10)));
@@ -860,6 +6497,226 @@ public class ErrorDetectionNumberTheory {
         }
     }
 
+    // Mismatches of a bulk verification, for a JTable. Rows live in chunks of primitive columns, with no object per
+    // row, and only the first MAX_ROWS are kept; the table only ever asks for the cells it shows.
+    @SuppressWarnings("serial") // never serialized
+    static final class MismatchTableModel extends AbstractTableModel {
+        static final int MAX_ROWS = 1_000_000;
+        private static final int CHUNK_SHIFT = 14;
+        private static final int CHUNK = 1 << CHUNK_SHIFT;
+        private static final String[] COLUMNS = {"Line", "Sent data", "Key/modulus", "Received data", "Sender checksum", "Receiver checksum"};
+
+        private final List<long[]> lines = new ArrayList<>();
+        // Five ints per row: sentData, key, receivedData, senderChecksum, receiverChecksum.
+        private final List<int[]> values = new ArrayList<>();
+        private int rows;
+
+        void add(BulkVerifyWorker.Chunk chunk) {
+            int first = rows;
+            for (int i = 0; i < chunk.size && rows < MAX_ROWS; i++, rows++) {
+                int offset = rows & (CHUNK - 1);
+                if (offset == 0) {
+                    lines.add(new long[CHUNK]);
+                    values.add(new int[CHUNK * 5]);
+                }
+                lines.get(rows >>> CHUNK_SHIFT)[offset] = chunk.lines[i];
+                System.arraycopy(chunk.values, i * 5, values.get(rows >>> CHUNK_SHIFT), offset * 5, 5);
+            }
+            if (rows > first) fireTableRowsInserted(first, rows - 1);
+        }
+
+        void clear() {
+            lines.clear();
+            values.clear();
+            rows = 0;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? Long.class : Integer.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            int offset = row & (CHUNK - 1);
+            if (column == 0) return lines.get(row >>> CHUNK_SHIFT)[offset];
+            return values.get(row >>> CHUNK_SHIFT)[offset * 5 + column - 1];
+        }
+    }
+
+    // Verifies a rows file (sentData, key, receivedData per line) or a pair of sent / received files (one value per
+    // line, all under one key) off the Event Dispatch Thread. Mismatches and the running counts go out in chunks of
+    // up to CHUNK_ROWS mismatches, at least every PUBLISH_NANOS, so the window keeps up while it runs. The result
+    // is null, or why the input could not be verified to the end. Callbacks get the worker they came from, so a
+    // window that has moved on to another run can drop what is still queued from a cancelled one.
+    static final class BulkVerifyWorker extends SwingWorker<String, BulkVerifyWorker.Chunk> {
+        static final int CHUNK_ROWS = 4096;
+        static final long PUBLISH_NANOS = 100_000_000L;
+        static final int PAUSE_LINES = 4096;
+
+        static final class Chunk {
+            final long[] lines = new long[CHUNK_ROWS];
+            final int[] values = new int[CHUNK_ROWS * 5];
+            int size;
+            // Totals so far.
+            long rows;
+            long mismatches;
+            long invalid;
+            long bytes;
+            long nanos;
+        }
+
+        private final Path rowsFile;
+        private final Path sentFile;
+        private final Path receivedFile;
+        private final int key;
+        private final BiConsumer<BulkVerifyWorker, Chunk> onChunk;
+        private final Consumer<BulkVerifyWorker> onDone;
+        private final IntLineReader[] readers = new IntLineReader[2];
+        private Chunk chunk = new Chunk();
+        private long start;
+        private long lastPublish;
+        private int sincePause;
+        private long rows;
+        private long mismatches;
+        private long invalid;
+
+        // onChunk and onDone run on the Event Dispatch Thread.
+        private BulkVerifyWorker(Path rowsFile, Path sentFile, Path receivedFile, int key,
+                                 BiConsumer<BulkVerifyWorker, Chunk> onChunk, Consumer<BulkVerifyWorker> onDone) {
+            this.rowsFile = rowsFile;
+            this.sentFile = sentFile;
+            this.receivedFile = receivedFile;
+            this.key = key;
+            this.onChunk = onChunk;
+            this.onDone = onDone;
+        }
+
+        static BulkVerifyWorker ofRows(Path rowsFile, BiConsumer<BulkVerifyWorker, Chunk> onChunk, Consumer<BulkVerifyWorker> onDone) {
+            return new BulkVerifyWorker(rowsFile, null, null, 0, onChunk, onDone);
+        }
+
+        static BulkVerifyWorker ofPair(Path sentFile, Path receivedFile, int key,
+                                       BiConsumer<BulkVerifyWorker, Chunk> onChunk, Consumer<BulkVerifyWorker> onDone) {
+            return new BulkVerifyWorker(null, sentFile, receivedFile, key, onChunk, onDone);
+        }
+
+        @Override
+        protected String doInBackground() throws IOException {
+            start = System.nanoTime();
+            lastPublish = start;
+            String problem = rowsFile != null ? verifyRows() : verifyPair();
+            if (!isCancelled()) publishChunk();
+            return problem;
+        }
+
+        private String verifyRows() throws IOException {
+            try (InputStream in = Files.newInputStream(rowsFile)) {
+                IntLineReader reader = readers[0] = new IntLineReader(in, 3);
+                long[] v = reader.values;
+                while (reader.next()) {
+                    if (pause()) return null;
+                    if (reader.malformed != null || reader.count < 3 || v[1] == 0) {
+                        invalid++;
+                    } else {
+                        check(reader.line, (int) v[0], (int) v[1], (int) v[2]);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private String verifyPair() throws IOException {
+            PreparedModulus modulus = PreparedModulus.of(key);
+            try (InputStream sentIn = Files.newInputStream(sentFile); InputStream receivedIn = Files.newInputStream(receivedFile)) {
+                IntLineReader sent = readers[0] = new IntLineReader(sentIn, 1);
+                IntLineReader received = readers[1] = new IntLineReader(receivedIn, 1);
+                while (true) {
+                    boolean more = sent.next();
+                    if (more != received.next()) {
+                        return (more ? "The received file" : "The sent file") + " ends after " + (rows + invalid) + " values";
+                    }
+                    if (!more) return null;
+                    if (pause()) return null;
+                    if (sent.malformed != null || received.malformed != null) {
+                        invalid++;
+                    } else {
+                        check(sent.line, (int) sent.values[0], key, (int) received.values[0], modulus);
+                    }
+                }
+            }
+        }
+
+        private void check(long line, int sentData, int key, int receivedData) {
+            check(line, sentData, key, receivedData, PreparedModulus.of(key));
+        }
+
+        private void check(long line, int sentData, int key, int receivedData, PreparedModulus modulus) {
+            rows++;
+            int senderChecksum = modulus.reduce(sentData);
+            int receiverChecksum = modulus.reduce(receivedData);
+            if (senderChecksum == receiverChecksum) return;
+            mismatches++;
+            int i = chunk.size++;
+            chunk.lines[i] = line;
+            int[] values = chunk.values;
+            values[i * 5] = sentData;
+            values[i * 5 + 1] = key;
+            values[i * 5 + 2] = receivedData;
+            values[i * 5 + 3] = senderChecksum;
+            values[i * 5 + 4] = receiverChecksum;
+            if (chunk.size == CHUNK_ROWS) publishChunk();
+        }
+
+        // Called for every line; every PAUSE_LINES of them, publishes when PUBLISH_NANOS have passed. True once cancelled.
+        private boolean pause() {
+            if (++sincePause < PAUSE_LINES) return false;
+            sincePause = 0;
+            if (System.nanoTime() - lastPublish >= PUBLISH_NANOS) publishChunk();
+            return isCancelled();
+        }
+
+        private void publishChunk() {
+            lastPublish = System.nanoTime();
+            chunk.rows = rows;
+            chunk.mismatches = mismatches;
+            chunk.invalid = invalid;
+            chunk.bytes = (readers[0] == null ? 0 : readers[0].bytesRead) + (readers[1] == null ? 0 : readers[1].bytesRead);
+            chunk.nanos = lastPublish - start;
+            publish(chunk);
+            chunk = new Chunk();
+        }
+
+        @Override
+        protected void process(List<Chunk> chunks) {
+            for (Chunk c : chunks) {
+                if (isCancelled()) return;
+                onChunk.accept(this, c);
+            }
+        }
+
+        @Override
+        protected void done() {
+            onDone.accept(this);
+        }
+    }
+
     static final class IntegerDocumentFilter extends DocumentFilter {
         @Override
         public void insertString(FilterBypass fb, int offset, String string, AttributeSet attr) throws BadLocationException {
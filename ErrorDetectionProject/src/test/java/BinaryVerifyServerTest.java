@@ -0,0 +1,100 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BinaryVerifyServerTest {
+    // Far more than the server and the sockets buffer: the server fills its input and output buffers and the
+    // socket, stops, and must resume every time the client drains some responses.
+    private static final int FRAMES = 1 << 20;
+    // How long the client only sends before it starts reading, so the stall above happens.
+    private static final long READ_DELAY_MILLIS = 1500;
+
+    private static ErrorDetectionNumberTheory.BinaryVerifyServer server;
+    private static ExecutorService senders;
+
+    @BeforeClass
+    public static void start() throws IOException {
+        server = ErrorDetectionNumberTheory.BinaryVerifyServer.start(0);
+        senders = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void stop() {
+        server.stop();
+        senders.shutdownNow();
+    }
+
+    @Test(timeout = 60_000)
+    public void answersAPipelinedBatchReadLate() throws Exception {
+        exchange(FRAMES, false, 1);
+    }
+
+    @Test(timeout = 60_000)
+    public void answersEveryFrameAfterTheClientHalfCloses() throws Exception {
+        exchange(FRAMES, true, 2);
+        // Small enough to sit entirely in the server's buffers when the half-close arrives.
+        exchange(ErrorDetectionNumberTheory.BinaryVerifyServer.FRAMES_PER_BUFFER + 1, true, 3);
+    }
+
+    // Sends frames from another thread, starts reading only after READ_DELAY_MILLIS, and checks every response
+    // against verify().
+    private static void exchange(int frames, boolean halfClose, long seed) throws Exception {
+        int[][] requests = new int[frames][];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < frames; i++) {
+            int sent = random.nextInt();
+            int prime = i % 1000 == 0 ? 0 : random.nextInt(1, 65536) * (random.nextBoolean() ? 1 : -1);
+            requests[i] = new int[] {sent, prime, random.nextInt(4) == 0 ? sent + 1 : sent};
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", server.port()));
+            // A stuck connection fails the read instead of waiting for the test timeout.
+            socket.setSoTimeout(5000);
+            Future<?> sender = senders.submit(() -> {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                for (int[] r : requests) {
+                    out.writeInt(r[0]);
+                    out.writeInt(r[1]);
+                    out.writeInt(r[2]);
+                }
+                out.flush();
+                if (halfClose) socket.shutdownOutput();
+                return null;
+            });
+            Thread.sleep(READ_DELAY_MILLIS);
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            for (int i = 0; i < frames; i++) {
+                int senderChecksum = in.readInt();
+                int receiverChecksum = in.readInt();
+                byte flag = in.readByte();
+                int[] r = requests[i];
+                if (r[1] == 0) {
+                    assertEquals("frame " + i, ErrorDetectionNumberTheory.BinaryVerifyServer.FLAG_INVALID_KEY, flag);
+                    continue;
+                }
+                ErrorDetectionNumberTheory.VerificationResult expected = ErrorDetectionNumberTheory.verify(r[0], r[1], r[2]);
+                assertEquals("frame " + i, expected.senderChecksum, senderChecksum);
+                assertEquals("frame " + i, expected.receiverChecksum, receiverChecksum);
+                assertEquals("frame " + i, expected.isOk() ? ErrorDetectionNumberTheory.BinaryVerifyServer.FLAG_MATCH
+                        : ErrorDetectionNumberTheory.BinaryVerifyServer.FLAG_MISMATCH, flag);
+            }
+            sender.get();
+            if (halfClose) assertEquals("server closes after the last response", -1, in.read());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class CrtKeySetTest {
+    @Test
+    public void combineInvertsResidues() {
+        ErrorDetectionNumberTheory.CrtKeySet keys = ErrorDetectionNumberTheory.CrtKeySet.of(new int[] {65521, 65519, 65497});
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt();
+            long x = keys.combine(keys.residues(value));
+            assertEquals(Math.floorMod((long) value, keys.product), x);
+        }
+    }
+
+    @Test
+    public void rebuildingKeysCorrectAnyError() {
+        ErrorDetectionNumberTheory.CrtKeySet keys = ErrorDetectionNumberTheory.CrtKeySet.of(new int[] {65521, 65519, 65497});
+        assertTrue(keys.rebuildsValue());
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 10_000; i++) {
+            int sent = i == 0 ? Integer.MIN_VALUE : i == 1 ? Integer.MAX_VALUE : random.nextInt();
+            int received = random.nextInt();
+            ErrorDetectionNumberTheory.CrtVerification v = keys.verify(keys.residues(sent), received);
+            assertEquals(sent != received, v.detected);
+            assertEquals(Integer.valueOf(sent), v.correctedData);
+        }
+    }
+
+    @Test
+    public void syndromeLookupCorrectsModelErrors() {
+        ErrorDetectionNumberTheory.CrtKeySet keys = ErrorDetectionNumberTheory.CrtKeySet.of(new int[] {251, 241, 239});
+        assertFalse(keys.rebuildsValue());
+        int sent = 1234567;
+        long[] residues = keys.residues(sent);
+        int corrected = 0;
+        for (long error : ErrorDetectionNumberTheory.CrtKeySet.errorModel()) {
+            long received = sent + error;
+            if (received < Integer.MIN_VALUE || received > Integer.MAX_VALUE) continue;
+            ErrorDetectionNumberTheory.CrtVerification v = keys.verify(residues, (int) received);
+            if (error % keys.product == 0) {
+                assertFalse(v.detected);
+                continue;
+            }
+            assertTrue("error=" + error, v.detected);
+            // An error shares its syndromes with another one only when the table marks it ambiguous.
+            if (v.correctedData != null) {
+                assertEquals("error=" + error, Integer.valueOf(sent), v.correctedData);
+                corrected++;
+            }
+        }
+        assertTrue("corrected " + corrected, corrected > 1000);
+    }
+
+    @Test
+    public void describesTheCorrectedError() {
+        ErrorDetectionNumberTheory.CrtKeySet keys = ErrorDetectionNumberTheory.CrtKeySet.of(new int[] {251, 241, 239});
+        ErrorDetectionNumberTheory.CrtVerification digit = keys.verify(keys.residues(1234567), 1204567);
+        assertEquals(Integer.valueOf(1234567), digit.correctedData);
+        assertEquals("digit", digit.errorKind());
+        assertEquals(4, digit.position());
+
+        ErrorDetectionNumberTheory.CrtVerification bit = keys.verify(keys.residues(1234567), 1234567 ^ (1 << 20));
+        assertEquals("bit", bit.errorKind());
+        assertEquals(20, bit.position());
+
+        ErrorDetectionNumberTheory.CrtVerification ok = keys.verify(keys.residues(1234567), 1234567);
+        assertTrue(ok.isOk());
+        assertNull(ok.errorKind());
+    }
+
+    @Test
+    public void rejectsBadKeySets() {
+        for (int[] keys : new int[][] {{13}, {6, 9}, {1, 7}, {2147483647, 2147483629, 2147483587}}) {
+            try {
+                ErrorDetectionNumberTheory.CrtKeySet.of(keys);
+                fail("accepted " + Arrays.toString(keys));
+            } catch (IllegalArgumentException expected) {
+                // Each set breaks one rule: too few keys, a common factor, a key below 2, a product of 2^62 or more.
+            }
+        }
+    }
+}
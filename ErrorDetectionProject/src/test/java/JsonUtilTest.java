@@ -0,0 +1,58 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class JsonUtilTest {
+    private static Integer[] read(String json) {
+        return ErrorDetectionNumberTheory.JsonUtil.readInts(json, "sentData", "prime", "receivedData");
+    }
+
+    @Test
+    public void readsTopLevelInts() {
+        assertArrayEquals(new Integer[] {987654321, 13, -987654322},
+                read("{\"sentData\":987654321,\"prime\":13,\"receivedData\":-987654322}"));
+        assertArrayEquals(new Integer[] {1, 2, 3},
+                read(" \n{ \"receivedData\" : 3 ,\t\"prime\": 2, \"sentData\":1 } \n"));
+        assertArrayEquals(new Integer[] {Integer.MIN_VALUE, Integer.MAX_VALUE, 0},
+                read("{\"sentData\":-2147483648,\"prime\":2147483647,\"receivedData\":0}"));
+    }
+
+    @Test
+    public void missingOrNonIntMembersAreNull() {
+        assertArrayEquals(new Integer[] {1, null, null}, read("{\"sentData\":1}"));
+        assertArrayEquals(new Integer[] {null, null, null}, read("{}"));
+        // Out of int range, fractional, exponent, string and null values.
+        assertArrayEquals(new Integer[] {null, null, null}, read("{\"sentData\":2147483648,\"prime\":1.5,\"receivedData\":1e3}"));
+        assertArrayEquals(new Integer[] {null, null, 3}, read("{\"sentData\":\"1\",\"prime\":null,\"receivedData\":3}"));
+    }
+
+    @Test
+    public void skipsOtherMembersAndNestedValues() {
+        assertArrayEquals(new Integer[] {1, 2, 3}, read("{\"algo\":\"crc32c\",\"nested\":{\"sentData\":99,\"a\":[1,{\"b\":\"}\"}]},"
+                + "\"sentData\":1,\"prime\":2,\"list\":[true,false,null],\"receivedData\":3}"));
+        assertArrayEquals(new Integer[] {1, 2, 3}, read("{\"sent\\u0044ata\":1,\"pr\\\"ime\":5,\"prime\":2,\"receivedData\":3}"));
+    }
+
+    @Test
+    public void repeatedKeyKeepsTheLastValue() {
+        assertArrayEquals(new Integer[] {2, null, null}, read("{\"sentData\":1,\"sentData\":2}"));
+        assertArrayEquals(new Integer[] {null, null, null}, read("{\"sentData\":1,\"sentData\":\"x\"}"));
+    }
+
+    @Test
+    public void malformedInputYieldsAllNulls() {
+        for (String json : new String[] {null, "", "[]", "{", "{\"sentData\":1", "{\"sentData\":1,}", "{\"sentData\" 1}",
+                "{\"sentData\":-}", "{\"sentData\":01x}", "{\"sentData\":1} trailing", "{\"sentData:1}",
+                "{\"a\":[1,2}", "{\"sentData\":1 \"prime\":2}"}) {
+            assertArrayEquals(json, new Integer[] {null, null, null}, read(json));
+        }
+    }
+
+    @Test
+    public void getIntReadsOneKey() {
+        assertEquals(Integer.valueOf(42), ErrorDetectionNumberTheory.JsonUtil.getInt("{\"value\":42}", "value"));
+        assertNull(ErrorDetectionNumberTheory.JsonUtil.getInt("{\"value\":42}", "other"));
+    }
+}
@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class PreparedModulusTest {
+    private static final int[] KEYS = {1, 2, 3, 7, 13, 251, 65521, 65536, 16777213, 2147483629, Integer.MAX_VALUE,
+            -13, -65521, Integer.MIN_VALUE + 1, Integer.MIN_VALUE};
+    private static final int[] EDGES = {0, 1, -1, 12, -12, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1};
+
+    @Test
+    public void reduceMatchesGenerateChecksum() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int key : KEYS) {
+            ErrorDetectionNumberTheory.PreparedModulus m = ErrorDetectionNumberTheory.PreparedModulus.of(key);
+            for (int x : EDGES) {
+                assertEquals("x=" + x + " key=" + key, ErrorDetectionNumberTheory.generateChecksum(x, key), m.reduce(x));
+            }
+            for (int i = 0; i < 100_000; i++) {
+                int x = random.nextInt();
+                assertEquals("x=" + x + " key=" + key, ErrorDetectionNumberTheory.generateChecksum(x, key), m.reduce(x));
+            }
+        }
+    }
+
+    @Test
+    public void reduce63MatchesRemainder() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int key : KEYS) {
+            ErrorDetectionNumberTheory.PreparedModulus m = ErrorDetectionNumberTheory.PreparedModulus.of(key);
+            long modulus = Math.abs((long) key);
+            for (long x : new long[] {0, 1, modulus - 1, modulus, Long.MAX_VALUE, Long.MAX_VALUE - 1}) {
+                if (x >= 0) assertEquals("x=" + x + " key=" + key, x % modulus, m.reduce63(x));
+            }
+            for (int i = 0; i < 100_000; i++) {
+                long x = random.nextLong() >>> 1;
+                assertEquals("x=" + x + " key=" + key, x % modulus, m.reduce63(x));
+            }
+        }
+    }
+
+    @Test
+    public void bulkMatchesScalar() {
+        SplittableRandom random = new SplittableRandom(3);
+        int n = 1000;
+        int[] sent = new int[n];
+        int[] received = new int[n];
+        long[] wide = new long[n];
+        for (int i = 0; i < n; i++) {
+            sent[i] = i < EDGES.length ? EDGES[i] : random.nextInt();
+            received[i] = i % 7 == 0 ? sent[i] + 1 : sent[i];
+            wide[i] = i < EDGES.length ? EDGES[i] : i == EDGES.length ? Long.MIN_VALUE : random.nextLong();
+        }
+        for (int key : KEYS) {
+            ErrorDetectionNumberTheory.PreparedModulus m = ErrorDetectionNumberTheory.PreparedModulus.of(key);
+            long modulus = key == Integer.MIN_VALUE ? key : Math.abs((long) key);
+            int[] out = new int[n];
+            m.reduceAll(sent, out, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals("x=" + sent[i] + " key=" + key, ErrorDetectionNumberTheory.generateChecksum(sent[i], key), out[i]);
+            }
+            m.reduceAll(wide, out, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals("x=" + wide[i] + " key=" + key, (int) Math.floorMod(wide[i], modulus), out[i]);
+            }
+            BitSet mismatches = new BitSet();
+            int count = m.verifyAll(sent, received, n, mismatches);
+            BitSet expected = new BitSet();
+            for (int i = 0; i < n; i++) {
+                if (ErrorDetectionNumberTheory.generateChecksum(sent[i], key) != ErrorDetectionNumberTheory.generateChecksum(received[i], key)) {
+                    expected.set(i);
+                }
+            }
+            assertEquals("key=" + key, expected, mismatches);
+            assertEquals("key=" + key, expected.cardinality(), count);
+        }
+    }
+
+    @Test
+    public void multiplyHighUnsignedMatchesBigInteger() {
+        SplittableRandom random = new SplittableRandom(4);
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int i = 0; i < 100_000; i++) {
+            long x = i == 0 ? -1 : random.nextLong();
+            long y = i == 0 ? -1 : random.nextLong();
+            long expected = new BigInteger(Long.toUnsignedString(x)).multiply(new BigInteger(Long.toUnsignedString(y)))
+                    .shiftRight(64).and(mask).longValue();
+            assertEquals(expected, ErrorDetectionNumberTheory.PreparedModulus.multiplyHighUnsigned(x, y));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class QueryParamsTest {
+    @Test
+    public void readsIntsAndStrings() {
+        ErrorDetectionNumberTheory.QueryParams qp =
+                ErrorDetectionNumberTheory.QueryParams.parse("sentData=987654321&prime=13&receivedData=-987654322&algo=crc32c");
+        assertEquals(Integer.valueOf(987654321), qp.getInt("sentData"));
+        assertEquals(Integer.valueOf(13), qp.getInt("prime"));
+        assertEquals(Integer.valueOf(-987654322), qp.getInt("receivedData"));
+        assertEquals("crc32c", qp.get("algo"));
+        assertNull(qp.getInt("algo"));
+        assertNull(qp.get("missing"));
+        assertNull(qp.getInt("missing"));
+    }
+
+    @Test
+    public void intRangeAndSyntax() {
+        ErrorDetectionNumberTheory.QueryParams qp = ErrorDetectionNumberTheory.QueryParams.parse(
+                "min=-2147483648&max=2147483647&over=2147483648&under=-2147483649&long=12345678901&empty=&dash=-&frac=1.5&zeros=0000000001");
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE), qp.getInt("min"));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), qp.getInt("max"));
+        assertNull(qp.getInt("over"));
+        assertNull(qp.getInt("under"));
+        assertNull(qp.getInt("long"));
+        assertNull(qp.getInt("empty"));
+        assertNull(qp.getInt("dash"));
+        assertNull(qp.getInt("frac"));
+        assertEquals(Integer.valueOf(1), qp.getInt("zeros"));
+    }
+
+    @Test
+    public void decodesPercentAndPlus() {
+        ErrorDetectionNumberTheory.QueryParams qp =
+                ErrorDetectionNumberTheory.QueryParams.parse("na%6De=a+b%20c&value=%2D42&spaced=+7+&bad=%zz");
+        assertEquals("a b c", qp.get("name"));
+        assertEquals(Integer.valueOf(-42), qp.getInt("value"));
+        assertEquals(Integer.valueOf(7), qp.getInt("spaced"));
+        // A malformed escape is kept as it came.
+        assertEquals("%zz", qp.get("bad"));
+    }
+
+    @Test
+    public void firstOccurrenceWinsAndBareKeysAreSkipped() {
+        ErrorDetectionNumberTheory.QueryParams qp = ErrorDetectionNumberTheory.QueryParams.parse("a=1&a=2&flag&&=3&b=x=y");
+        assertEquals(Integer.valueOf(1), qp.getInt("a"));
+        assertNull(qp.get("flag"));
+        assertNull(qp.get(""));
+        assertEquals("x=y", qp.get("b"));
+    }
+
+    @Test
+    public void growsPastItsInitialCapacity() {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            raw.append(i == 0 ? "" : "&").append('k').append(i).append('=').append(i * 10);
+        }
+        ErrorDetectionNumberTheory.QueryParams qp = ErrorDetectionNumberTheory.QueryParams.parse(raw.toString());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Integer.valueOf(i * 10), qp.getInt("k" + i));
+        }
+    }
+
+    @Test
+    public void nullOrEmptyQuery() {
+        assertNull(ErrorDetectionNumberTheory.QueryParams.parse(null).get("a"));
+        assertNull(ErrorDetectionNumberTheory.QueryParams.parse("").getInt("a"));
+    }
+}
@@ -0,0 +1,73 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RollingChecksumTest {
+    private static final int[] KEYS = {2, 13, 65521, 2147483629, Integer.MAX_VALUE, -65521};
+
+    @Test
+    public void everyWindowMatchesARecomputation() {
+        byte[] data = new byte[3000];
+        new Random(1).nextBytes(data);
+        for (int key : KEYS) {
+            for (int window : new int[] {1, 7, 64, 1000}) {
+                ErrorDetectionNumberTheory.RollingChecksum rolling = new ErrorDetectionNumberTheory.RollingChecksum(key, window);
+                for (int i = 0; i < data.length; i++) {
+                    rolling.scan(data, i, 1, -1, offset -> { });
+                    if (i + 1 >= window) {
+                        long expected = new ErrorDetectionNumberTheory.PayloadChecksum(key).update(data, i + 1 - window, window).value();
+                        assertEquals("key=" + key + " window=" + window + " end=" + i, expected, rolling.value());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void payloadChecksumIsTheBigEndianResidue() {
+        byte[] data = new byte[1021];
+        new Random(2).nextBytes(data);
+        for (int key : KEYS) {
+            long expected = new BigInteger(1, data).mod(BigInteger.valueOf(Math.abs((long) key))).longValue();
+            assertEquals("key=" + key, expected, new ErrorDetectionNumberTheory.PayloadChecksum(key).update(data, 0, data.length).value());
+        }
+    }
+
+    @Test
+    public void matchesDoNotDependOnHowTheInputIsSplit() {
+        byte[] data = new byte[20_000];
+        new Random(3).nextBytes(data);
+        int key = 251;
+        int window = 16;
+        long target = new ErrorDetectionNumberTheory.PayloadChecksum(key).update(data, 5000, window).value();
+
+        List<Long> whole = new ArrayList<>();
+        new ErrorDetectionNumberTheory.RollingChecksum(key, window).scan(data, 0, data.length, target, whole::add);
+
+        List<Long> expected = new ArrayList<>();
+        for (int start = 0; start + window <= data.length; start++) {
+            if (new ErrorDetectionNumberTheory.PayloadChecksum(key).update(data, start, window).value() == target) {
+                expected.add((long) start);
+            }
+        }
+        assertEquals(expected, whole);
+
+        // Pieces shorter than, equal to and longer than the window.
+        for (int piece : new int[] {1, 5, 16, 17, 333}) {
+            List<Long> split = new ArrayList<>();
+            ErrorDetectionNumberTheory.RollingChecksum rolling = new ErrorDetectionNumberTheory.RollingChecksum(key, window);
+            for (int off = 0; off < data.length; off += piece) {
+                rolling.scan(data, off, Math.min(piece, data.length - off), target, split::add);
+            }
+            assertEquals("piece=" + piece, expected, split);
+            assertEquals(data.length, rolling.position());
+        }
+        assertTrue(expected.contains(5000L));
+    }
+}
@@ -0,0 +1,84 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class Utf8BufferTest {
+    private static ErrorDetectionNumberTheory.Utf8Buffer buffer() {
+        // Small, so most appends also grow it.
+        return new ErrorDetectionNumberTheory.Utf8Buffer(4);
+    }
+
+    @Test
+    public void stringsEncodeLikeGetBytes() {
+        for (String s : new String[] {"", "plain ascii", "café ß", "€100 中文", "😀 emoji",
+                "lone high \ud83d", "lone low \ude00 end", "\ude00\ud83d reversed", "\u007f\u0080߿ࠀ￿"}) {
+            assertArrayEquals(s, s.getBytes(StandardCharsets.UTF_8), buffer().append(s).toByteArray());
+        }
+    }
+
+    @Test
+    public void intsAndLongsPrintLikeToString() {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] ints = {0, 1, -1, 9, 10, 99, 100, 999999999, 1000000000, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1};
+        for (int v : ints) {
+            assertEquals(Integer.toString(v), buffer().append(v).toString());
+        }
+        long[] longs = {0, 2147483648L, -2147483649L, 9999999999L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        for (long v : longs) {
+            assertEquals(Long.toString(v), buffer().append(v).toString());
+            assertEquals(Long.toUnsignedString(v), buffer().appendUnsigned(v).toString());
+        }
+        for (int i = 0; i < 100_000; i++) {
+            int v = random.nextInt();
+            long w = random.nextLong();
+            assertEquals(Integer.toString(v), buffer().append(v).toString());
+            assertEquals(Long.toString(w), buffer().append(w).toString());
+            assertEquals(Long.toUnsignedString(w), buffer().appendUnsigned(w).toString());
+        }
+    }
+
+    @Test
+    public void fractionsHaveSevenDecimals() {
+        assertEquals("0.0000000", buffer().appendFraction(0).toString());
+        assertEquals("1.0000000", buffer().appendFraction(1).toString());
+        assertEquals("0.5000000", buffer().appendFraction(0.5).toString());
+        assertEquals("0.0000001", buffer().appendFraction(1e-7).toString());
+        assertEquals("0.1234568", buffer().appendFraction(0.12345678).toString());
+        assertEquals("0.9999999", buffer().appendFraction(0.99999994).toString());
+        assertEquals("-0.0769231", buffer().appendFraction(-1.0 / 13).toString());
+        assertEquals("-1.5000000", buffer().appendFraction(-1.5).toString());
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 10_000; i++) {
+            double x = random.nextDouble();
+            assertEquals(String.format(Locale.ROOT, "%.7f", Math.round(x * 10_000_000) / 10_000_000.0),
+                    buffer().appendFraction(x).toString());
+        }
+    }
+
+    @Test
+    public void listsBooleansAndBytes() {
+        assertEquals("[]", buffer().appendList(new int[0]).toString());
+        assertEquals("[1,-2,3]", buffer().appendList(new int[] {1, -2, 3}).toString());
+        assertEquals("[4294967296,-1]", buffer().appendList(new long[] {1L << 32, -1}).toString());
+        assertEquals("true,false", buffer().append(true).append(',').append(false).toString());
+        assertEquals("abé", buffer().append("ab".getBytes(StandardCharsets.US_ASCII)).append("é").toString());
+    }
+
+    @Test
+    public void copiesCompareByContent() {
+        ErrorDetectionNumberTheory.Utf8Buffer a = buffer().append("isPrime:").append(97);
+        ErrorDetectionNumberTheory.Utf8Buffer copy = a.copy();
+        assertEquals(a, copy);
+        assertEquals(a.hashCode(), copy.hashCode());
+        a.reset().append("isPrime:").append(98);
+        assertNotEquals(a, copy);
+        assertEquals("isPrime:97", copy.toString());
+        assertEquals(0, a.reset().length());
+    }
+}
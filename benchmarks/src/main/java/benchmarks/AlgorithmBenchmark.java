@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every built-in checksum algorithm over a 64 KiB buffer (score per buffer) and over single ints (score per int,
+// 1024 per call), with key 65521.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AlgorithmBenchmark {
+    private static final MethodHandle FOR_NAME = App.method("ChecksumAlgorithms", "forName",
+            MethodType.methodType(Object.class, String.class), String.class);
+    private static final MethodHandle CHECKSUM_BYTES = App.method("ChecksumAlgorithm", "checksum",
+            MethodType.methodType(long.class, Object.class, byte[].class, int.class, int.class, int.class),
+            byte[].class, int.class, int.class, int.class);
+    private static final MethodHandle CHECKSUM_INT = App.method("ChecksumAlgorithm", "checksum",
+            MethodType.methodType(long.class, Object.class, int.class, int.class), int.class, int.class);
+
+    private static final int KEY = 65521;
+    private static final int INTS = 1024;
+
+    @Param({"mod", "crc32c", "adler32", "fletcher32", "fletcher64", "rns"})
+    public String algo;
+
+    private Object algorithm;
+    private final byte[] buffer = new byte[64 * 1024];
+
+    @Setup
+    public void setUp() throws Throwable {
+        algorithm = (Object) FOR_NAME.invokeExact(algo);
+        if (algorithm == null) throw new IllegalStateException("Unknown algorithm " + algo);
+        new Random(42).nextBytes(buffer);
+    }
+
+    @Benchmark
+    public long bytes64KiB() {
+        try {
+            return (long) CHECKSUM_BYTES.invokeExact(algorithm, buffer, 0, buffer.length, KEY);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INTS)
+    public long ints() {
+        try {
+            long acc = 0;
+            for (int i = 0; i < INTS; i++) {
+                acc += (long) CHECKSUM_INT.invokeExact(algorithm, i * 40503 - 20000000, KEY);
+            }
+            return acc;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// The application lives in the default package, which JMH benchmarks cannot import from, and its members are
+// package-private. This resolves them once as MethodHandles; held in static finals they are constants to the
+// JIT, so a call costs the same as a direct one.
+final class App {
+    static final String MAIN = "ErrorDetectionNumberTheory";
+
+    private App() {
+    }
+
+    static Class<?> type(String nested) {
+        try {
+            return Class.forName(nested == null ? MAIN : MAIN + "$" + nested);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Application class not on the classpath: " + e.getMessage(), e);
+        }
+    }
+
+    // A static or instance method, with its receiver and any application-typed parameters or result widened to
+    // Object so callers can use invokeExact with the given type.
+    static MethodHandle method(String owner, String name, MethodType type, Class<?>... parameters) {
+        try {
+            Method m = type(owner).getDeclaredMethod(name, parameters);
+            m.setAccessible(true);
+            return MethodHandles.lookup().unreflect(m).asType(type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner + "." + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    // A constructor as a handle of the given type, usually (params) -> Object.
+    static MethodHandle constructor(String owner, MethodType type, Class<?>... parameters) {
+        try {
+            Constructor<?> c = type(owner).getDeclaredConstructor(parameters);
+            c.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(c).asType(type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner + " constructor: " + e.getMessage(), e);
+        }
+    }
+
+    // An instance field read as (Object) -> type.
+    static MethodHandle getter(String owner, String name, Class<?> type) {
+        try {
+            Field f = type(owner).getDeclaredField(name);
+            f.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(f).asType(MethodType.methodType(type, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing " + owner + "." + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    static Object construct(String owner, Class<?>[] parameters, Object... args) {
+        try {
+            Constructor<?> c = type(owner).getDeclaredConstructor(parameters);
+            c.setAccessible(true);
+            return c.newInstance(args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot construct " + owner + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Rethrows whatever a MethodHandle threw without wrapping checked exceptions at every call site.
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,158 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The audit log: what a request pays to hand a verification over to the running writer (a full ring drops the
+// record, which is part of the cost being measured), then queries over 4M stored records: a scan of every
+// record's outcome and a seek followed by reading 1000 records. Logs go to a temporary directory.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditBenchmark {
+    private static final MethodHandle NEW_LOG = App.constructor("AuditLog",
+            MethodType.methodType(Object.class, Path.class, int.class, int.class), Path.class, int.class, int.class);
+    private static final MethodHandle START_WRITER = App.method("AuditLog", "startWriter",
+            MethodType.methodType(void.class, Object.class));
+    private static final MethodHandle APPEND = App.method("AuditLog", "append",
+            MethodType.methodType(void.class, Object.class, int.class, int.class, int.class, int.class),
+            int.class, int.class, int.class, int.class);
+    private static final MethodHandle CLOSE = App.method("AuditLog", "close",
+            MethodType.methodType(void.class, Object.class));
+    private static final MethodHandle SEGMENTS = App.method("AuditLog", "segments",
+            MethodType.methodType(List.class, Object.class));
+    private static final MethodHandle COUNT = App.getter("AuditLog$Segment", "count", int.class);
+    private static final MethodHandle OK = App.method("AuditLog$Segment", "ok",
+            MethodType.methodType(boolean.class, Object.class, int.class), int.class);
+    private static final MethodHandle SEEK = App.method("AuditLog$Segment", "seek",
+            MethodType.methodType(int.class, Object.class, long.class), long.class);
+    private static final MethodHandle TIME = App.method("AuditLog$Segment", "time",
+            MethodType.methodType(long.class, Object.class, int.class), int.class);
+    private static final MethodHandle SENT_DATA = App.method("AuditLog$Segment", "sentData",
+            MethodType.methodType(int.class, Object.class, int.class), int.class);
+
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final int RECORDS = 4 << 20;
+
+    // A log with its writer running, as on the request path.
+    @State(Scope.Thread)
+    public static class Running {
+        Path dir;
+        Object log;
+        int sent;
+
+        @Setup
+        public void setUp() throws Throwable {
+            dir = Files.createTempDirectory("audit-bench");
+            // Eight segments kept, so a long run does not fill the disk.
+            log = (Object) NEW_LOG.invokeExact(dir, SEGMENT_RECORDS, 8);
+            START_WRITER.invokeExact(log);
+        }
+
+        @TearDown
+        public void tearDown() throws Throwable {
+            CLOSE.invokeExact(log);
+            delete(dir);
+        }
+    }
+
+    @Benchmark
+    public void append(Running running) {
+        try {
+            int i = running.sent++;
+            APPEND.invokeExact(running.log, 0, i, 65521, (i & 15) == 0 ? i + 1 : i);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    // A closed log holding RECORDS records, one in sixteen a mismatch.
+    @State(Scope.Benchmark)
+    public static class Filled {
+        Path dir;
+        List<?> segments;
+        Object middle;
+        long from;
+
+        @Setup
+        public void setUp() throws Throwable {
+            dir = Files.createTempDirectory("audit-bench");
+            Object log = (Object) NEW_LOG.invokeExact(dir, SEGMENT_RECORDS, 0);
+            START_WRITER.invokeExact(log);
+            for (int i = 0; i < RECORDS; i++) {
+                APPEND.invokeExact(log, 0, i, 65521, (i & 15) == 0 ? i + 1 : i);
+                // Keep the ring from overflowing so every record is stored.
+                if ((i & 0xFFFF) == 0xFFFF) Thread.sleep(1);
+            }
+            CLOSE.invokeExact(log);
+            segments = (List<?>) SEGMENTS.invokeExact(log);
+            middle = segments.get(segments.size() / 2);
+            from = (long) TIME.invokeExact(middle, (int) COUNT.invokeExact(middle) / 2);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            delete(dir);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long scanAll(Filled filled) {
+        try {
+            long mismatches = 0;
+            for (Object segment : filled.segments) {
+                int n = (int) COUNT.invokeExact(segment);
+                for (int i = 0; i < n; i++) {
+                    if (!(boolean) OK.invokeExact(segment, i)) mismatches++;
+                }
+            }
+            return mismatches;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public long seekAndRead1000(Filled filled) {
+        try {
+            Object segment = filled.middle;
+            int i = (int) SEEK.invokeExact(segment, filled.from);
+            long acc = 0;
+            for (int end = Math.min((int) COUNT.invokeExact(segment), i + 1000); i < end; i++) {
+                acc += (long) TIME.invokeExact(segment, i) + (int) SENT_DATA.invokeExact(segment, i);
+            }
+            return acc;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
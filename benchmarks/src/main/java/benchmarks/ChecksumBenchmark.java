@@ -0,0 +1,120 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// generateChecksum and verify over a table of random values, for a small, a 16-bit and a near-2^31 key, and
+// checksumAll (int and long data) and verifyAll over the whole table (score is per call, i.e. per 1024 values;
+// one received value in 64 differs).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChecksumBenchmark {
+    private static final MethodHandle GENERATE_CHECKSUM = App.method(null, "generateChecksum",
+            MethodType.methodType(int.class, int.class, int.class), int.class, int.class);
+    private static final MethodHandle VERIFY = App.method(null, "verify",
+            MethodType.methodType(Object.class, int.class, int.class, int.class), int.class, int.class, int.class);
+    private static final MethodHandle CHECKSUM_ALL = App.method(null, "checksumAll",
+            MethodType.methodType(void.class, int[].class, int.class, int[].class), int[].class, int.class, int[].class);
+    private static final MethodHandle CHECKSUM_ALL_LONG = App.method(null, "checksumAll",
+            MethodType.methodType(void.class, long[].class, int.class, int[].class), long[].class, int.class, int[].class);
+    private static final MethodHandle VERIFY_ALL = App.method(null, "verifyAll",
+            MethodType.methodType(int.class, int[].class, int[].class, int.class, BitSet.class),
+            int[].class, int[].class, int.class, BitSet.class);
+
+    private static final int VALUES = 1024;
+
+    @Param({"13", "65521", "2147483629"})
+    public int key;
+
+    private int[] values;
+    private int[] received;
+    private long[] wide;
+    private int[] checksums;
+    private final BitSet mismatches = new BitSet(VALUES);
+    private int index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        checksums = new int[VALUES];
+        values = new int[VALUES];
+        received = new int[VALUES];
+        wide = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = random.nextInt();
+            received[i] = (i & 63) == 0 ? values[i] + 1 : values[i];
+            wide[i] = random.nextLong();
+        }
+    }
+
+    private int next() {
+        return values[index++ & (VALUES - 1)];
+    }
+
+    @Benchmark
+    public int generateChecksum() {
+        try {
+            return (int) GENERATE_CHECKSUM.invokeExact(next(), key);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public Object verify() {
+        int value = next();
+        try {
+            return (Object) VERIFY.invokeExact(value, key, value ^ 1);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public int[] checksumAll() {
+        try {
+            CHECKSUM_ALL.invokeExact(values, key, checksums);
+            return checksums;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public int[] checksumAllLong() {
+        try {
+            CHECKSUM_ALL_LONG.invokeExact(wide, key, checksums);
+            return checksums;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public int verifyAll() {
+        try {
+            return (int) VERIFY_ALL.invokeExact(values, received, key, mismatches);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares two JMH runs saved with -rf csv, e.g. one per commit:
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.Compare before.csv after.csv
+//
+// Prints each benchmark's change and marks it only when the scores differ by more than their combined
+// 99.9% error. Exits with 1 if anything regressed, so it can gate a build.
+public final class Compare {
+    private Compare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: Compare <baseline.csv> <candidate.csv>");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> candidate = read(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+        for (Map.Entry<String, Result> entry : candidate.entrySet()) {
+            Result after = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  (new)%n", entry.getKey(), "-", after.score, "");
+                continue;
+            }
+            double change = (after.score - before.score) / before.score * 100;
+            String verdict = "";
+            if (Math.abs(after.score - before.score) > after.error + before.error) {
+                boolean better = after.higherIsBetter() ? after.score > before.score : after.score < before.score;
+                verdict = better ? "  improved" : "  REGRESSED";
+                if (!better) regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s  %s%n",
+                    entry.getKey(), before.score, after.score, change, verdict, after.unit);
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed.");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty()) return results;
+        List<String> header = split(lines.get(0));
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).trim().isEmpty()) continue;
+            List<String> row = split(lines.get(i));
+            // Columns after Unit are "Param: name"; each row only fills its own benchmark's params.
+            List<String> params = new ArrayList<>();
+            for (int c = 7; c < row.size() && c < header.size(); c++) {
+                if (!row.get(c).isEmpty()) {
+                    params.add(header.get(c).replace("Param: ", "") + "=" + row.get(c));
+                }
+            }
+            String key = params.isEmpty() ? row.get(0) : row.get(0) + " [" + String.join(", ", params) + "]";
+            String mode = row.get(1);
+            double error = row.get(5).isEmpty() || "NaN".equals(row.get(5)) ? 0 : Double.parseDouble(row.get(5));
+            results.put(key + " " + mode, new Result(mode, Double.parseDouble(row.get(4)), error, row.get(6)));
+        }
+        return results;
+    }
+
+    // JMH quotes every text field and doubles embedded quotes.
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Result {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Locating and correcting one changed digit (1234567 received as 1204567) with CRT key sets: three 16-bit keys,
+// which rebuild the value with Garner's algorithm, and three 8-bit keys, which look the syndrome up in a table.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CrtBenchmark {
+    private static final MethodHandle OF = App.method("CrtKeySet", "of",
+            MethodType.methodType(Object.class, int[].class), int[].class);
+    private static final MethodHandle RESIDUES = App.method("CrtKeySet", "residues",
+            MethodType.methodType(long[].class, Object.class, int.class), int.class);
+    private static final MethodHandle VERIFY = App.method("CrtKeySet", "verify",
+            MethodType.methodType(Object.class, Object.class, long[].class, int.class), long[].class, int.class);
+    private static final MethodHandle CORRECTED = App.getter("CrtVerification", "correctedData", Integer.class);
+
+    private static final int SENT = 1234567;
+    private static final int RECEIVED = 1204567;
+
+    private Object rebuilding;
+    private Object small;
+    private long[] rebuildingResidues;
+    private long[] smallResidues;
+
+    @Setup
+    public void setUp() throws Throwable {
+        rebuilding = (Object) OF.invokeExact(new int[] {65521, 65519, 65497});
+        small = (Object) OF.invokeExact(new int[] {251, 241, 239});
+        rebuildingResidues = (long[]) RESIDUES.invokeExact(rebuilding, SENT);
+        smallResidues = (long[]) RESIDUES.invokeExact(small, SENT);
+    }
+
+    @Benchmark
+    public Integer correctRebuild() {
+        try {
+            return (Integer) CORRECTED.invokeExact((Object) VERIFY.invokeExact(rebuilding, rebuildingResidues, RECEIVED));
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public Integer correctSyndromeLookup() {
+        try {
+            return (Integer) CORRECTED.invokeExact((Object) VERIFY.invokeExact(small, smallResidues, RECEIVED));
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// End-to-end GET /api/verify over loopback: the application's own server (every route, metrics and response cache
+// as --server sets them up, default fixed executor) and keep-alive HttpURLConnection clients, one per thread.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class HttpVerifyBenchmark {
+    private static final MethodHandle CREATE_EXECUTOR = App.method("ServerExecutor", "create",
+            MethodType.methodType(Object.class, String.class, Integer.class, Integer.class),
+            String.class, Integer.class, Integer.class);
+    private static final MethodHandle SHUTDOWN_EXECUTOR = App.method("ServerExecutor", "shutdown",
+            MethodType.methodType(void.class, Object.class));
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        HttpServer server;
+        Object executor;
+        Path webRoot;
+        String base;
+
+        @Setup(Level.Trial)
+        public void start() throws Throwable {
+            executor = (Object) CREATE_EXECUTOR.invokeExact("fixed", (Integer) null, (Integer) null);
+            webRoot = Files.createTempDirectory("http-bench");
+            MethodHandle create = App.method(null, "createWebServer",
+                    MethodType.methodType(HttpServer.class, int.class, Object.class, Path.class),
+                    int.class, App.type("ServerExecutor"), Path.class);
+            server = (HttpServer) create.invokeExact(0, executor, webRoot);
+            base = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/verify";
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Throwable {
+            server.stop(0);
+            SHUTDOWN_EXECUTOR.invokeExact(executor);
+            Files.deleteIfExists(webRoot);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        final byte[] buffer = new byte[4096];
+        int counter;
+    }
+
+    @Benchmark
+    public int verify(Server server, Client client) throws IOException {
+        int sent = client.counter++;
+        URL url = new URL(server.base + "?sentData=" + sent + "&prime=65521&receivedData=" + (sent ^ (sent & 1)));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int total = 0;
+        // Reading to the end and closing the stream hands the connection back to the keep-alive cache.
+        try (InputStream in = connection.getInputStream()) {
+            for (int n; (n = in.read(client.buffer)) > 0; ) total += n;
+        }
+        return total + connection.getResponseCode();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// IsPrimeHandler answering one request without a socket, from the response cache or with the cache off, for an
+// int prime and for 2^127 - 1 (BigInteger Miller-Rabin).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IsPrimeHandlerBenchmark {
+    private static final MethodHandle CONFIGURE_CACHE = App.method("ResponseCache", "configure",
+            MethodType.methodType(void.class, int.class), int.class);
+
+    @Param({"cached", "uncached"})
+    public String variant;
+
+    @Param({"2147483629", "170141183460469231731687303715884105727"})
+    public String value;
+
+    private HttpHandler handler;
+    private StubExchange exchange;
+
+    @Setup
+    public void setUp() throws Throwable {
+        handler = (HttpHandler) App.construct("IsPrimeHandler", new Class<?>[0]);
+        exchange = new StubExchange("GET", "/api/isPrime?value=" + value);
+        CONFIGURE_CACHE.invokeExact("uncached".equals(variant) ? 0 : 10_000);
+    }
+
+    @TearDown
+    public void tearDown() throws Throwable {
+        CONFIGURE_CACHE.invokeExact(10_000);
+    }
+
+    @Benchmark
+    public int respond() throws IOException {
+        exchange.reset();
+        handler.handle(exchange);
+        return exchange.bodyLength() + exchange.getResponseCode();
+    }
+}
@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Math.floorMod and % against PreparedModulus across modulus sizes, per value over 1024 mixed-sign ints and
+// 1024 non-negative longs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModulusBenchmark {
+    private static final MethodHandle OF = App.method("PreparedModulus", "of",
+            MethodType.methodType(Object.class, int.class), int.class);
+    private static final MethodHandle REDUCE = App.method("PreparedModulus", "reduce",
+            MethodType.methodType(int.class, Object.class, int.class), int.class);
+    private static final MethodHandle REDUCE63 = App.method("PreparedModulus", "reduce63",
+            MethodType.methodType(long.class, Object.class, long.class), long.class);
+
+    private static final int VALUES = 1024;
+
+    @Param({"3", "251", "65521", "16777213", "2147483647"})
+    public int key;
+
+    private final int[] data = new int[VALUES];
+    private final long[] wide = new long[VALUES];
+    private Object prepared;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Random random = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            data[i] = random.nextInt();
+            wide[i] = random.nextLong() >>> 1;
+        }
+        prepared = (Object) OF.invokeExact(key);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long floorMod() {
+        long acc = 0;
+        for (int x : data) acc += Math.floorMod(x, key);
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long reduce() {
+        try {
+            long acc = 0;
+            for (int x : data) acc += (int) REDUCE.invokeExact(prepared, x);
+            return acc;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long remainder63() {
+        long m = key;
+        long acc = 0;
+        for (long x : wide) acc += x % m;
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long reduce63() {
+        try {
+            long acc = 0;
+            for (long x : wide) acc += (long) REDUCE63.invokeExact(prepared, x);
+            return acc;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.net.URLDecoder;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Request parsing as the verify handler does it: all three fields out of a JSON body (one getInt per field, or
+// one readInts pass) or a query string. The *Baseline benchmarks run the implementations these replaced, a
+// regex compiled per JSON lookup and a split-and-decode of the whole query per lookup, copied below.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsingBenchmark {
+    private static final MethodHandle JSON_GET_INT = App.method("JsonUtil", "getInt",
+            MethodType.methodType(Integer.class, String.class, String.class), String.class, String.class);
+    private static final MethodHandle JSON_READ_INTS = App.method("JsonUtil", "readInts",
+            MethodType.methodType(Integer[].class, String.class, String[].class), String.class, String[].class);
+    private static final MethodHandle QUERY_PARSE = App.method("QueryParams", "parse",
+            MethodType.methodType(Object.class, String.class), String.class);
+    private static final MethodHandle QUERY_GET_INT = App.method("QueryParams", "getInt",
+            MethodType.methodType(Integer.class, Object.class, String.class), String.class);
+
+    public String json = "{\"sentData\": 987654321, \"prime\": 13, \"receivedData\": -987654322}";
+    public String query = "sentData=987654321&prime=13&receivedData=-987654322";
+    public String[] keys = {"sentData", "prime", "receivedData"};
+
+    @Benchmark
+    public void jsonGetInt(Blackhole bh) {
+        try {
+            bh.consume((Integer) JSON_GET_INT.invokeExact(json, "sentData"));
+            bh.consume((Integer) JSON_GET_INT.invokeExact(json, "prime"));
+            bh.consume((Integer) JSON_GET_INT.invokeExact(json, "receivedData"));
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public void jsonRegexBaseline(Blackhole bh) {
+        bh.consume(regexGetInt(json, "sentData"));
+        bh.consume(regexGetInt(json, "prime"));
+        bh.consume(regexGetInt(json, "receivedData"));
+    }
+
+    @Benchmark
+    public Integer[] jsonReadInts() {
+        try {
+            return (Integer[]) JSON_READ_INTS.invokeExact(json, keys);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public void queryParamsGetInt(Blackhole bh) {
+        try {
+            Object params = (Object) QUERY_PARSE.invokeExact(query);
+            bh.consume((Integer) QUERY_GET_INT.invokeExact(params, "sentData"));
+            bh.consume((Integer) QUERY_GET_INT.invokeExact(params, "prime"));
+            bh.consume((Integer) QUERY_GET_INT.invokeExact(params, "receivedData"));
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public void querySplitBaseline(Blackhole bh) {
+        bh.consume(splitGetInt(query, "sentData"));
+        bh.consume(splitGetInt(query, "prime"));
+        bh.consume(splitGetInt(query, "receivedData"));
+    }
+
+    // JsonUtil.getInt before the single-pass reader.
+    private static Integer regexGetInt(String json, String key) {
+        if (json == null || key == null) return null;
+        Pattern p = Pattern.compile("\\\"" + Pattern.quote(key) + "\\\"\\s*:\\s*(-?\\d+)");
+        Matcher m = p.matcher(json);
+        if (!m.find()) return null;
+        return parseInt(m.group(1));
+    }
+
+    // QueryParams.getInt before the one-pass table: the raw query split and decoded again on every lookup.
+    private static Integer splitGetInt(String raw, String key) {
+        if (key == null || key.isEmpty() || raw.isEmpty()) return null;
+        for (String part : raw.split("&")) {
+            int idx = part.indexOf('=');
+            if (idx <= 0) continue;
+            if (!key.equals(decode(part.substring(0, idx)))) continue;
+            String v = decode(part.substring(idx + 1));
+            return v.trim().isEmpty() ? null : parseInt(v);
+        }
+        return null;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (Exception ex) {
+            return s;
+        }
+    }
+
+    private static Integer parseInt(String s) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The residue of a 64 MiB payload: PayloadChecksum on one thread, and ParallelPayloadChecksum on a fork/join pool
+// of threads workers (0 = every core). Score is per 64 MiB.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+    private static final MethodHandle NEW_PAYLOAD = App.constructor("PayloadChecksum",
+            MethodType.methodType(Object.class, int.class), int.class);
+    private static final MethodHandle UPDATE = App.method("PayloadChecksum", "update",
+            MethodType.methodType(Object.class, Object.class, byte[].class, int.class, int.class),
+            byte[].class, int.class, int.class);
+    private static final MethodHandle VALUE = App.method("PayloadChecksum", "value",
+            MethodType.methodType(long.class, Object.class));
+    private static final MethodHandle NEW_PARALLEL = App.constructor("ParallelPayloadChecksum",
+            MethodType.methodType(Object.class, int.class), int.class);
+    private static final MethodHandle PARALLEL_CHECKSUM = App.method("ParallelPayloadChecksum", "checksum",
+            MethodType.methodType(long.class, Object.class, byte[].class, int.class, int.class, ForkJoinPool.class),
+            byte[].class, int.class, int.class, ForkJoinPool.class);
+
+    @Param({"13", "65521", "2147483647"})
+    public int key;
+
+    private final byte[] buffer = new byte[64 << 20];
+    private Object parallel;
+
+    // Only forkJoin uses this state, so only it runs once per pool size.
+    @State(Scope.Thread)
+    public static class Pool {
+        @Param({"1", "0"})
+        public int threads;
+
+        ForkJoinPool pool;
+
+        @Setup
+        public void setUp() {
+            pool = new ForkJoinPool(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Throwable {
+        new Random(42).nextBytes(buffer);
+        parallel = (Object) NEW_PARALLEL.invokeExact(key);
+    }
+
+    @Benchmark
+    public long sequential() {
+        try {
+            Object payload = (Object) NEW_PAYLOAD.invokeExact(key);
+            payload = (Object) UPDATE.invokeExact(payload, buffer, 0, buffer.length);
+            return (long) VALUE.invokeExact(payload);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public long forkJoin(Pool pool) {
+        try {
+            return (long) PARALLEL_CHECKSUM.invokeExact(parallel, buffer, 0, buffer.length, pool.pool);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// --pipe over 1M in-memory CSV rows, one in ten mismatched, per row: every result written, or only mismatches.
+// Output goes to a stream that discards it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipeBenchmark {
+    private static final MethodHandle NEW_PIPE = App.constructor("PipeVerifier",
+            MethodType.methodType(Object.class, OutputStream.class, boolean.class), OutputStream.class, boolean.class);
+    private static final MethodHandle VERIFY = App.method("PipeVerifier", "verify",
+            MethodType.methodType(void.class, Object.class, InputStream.class, String.class), InputStream.class, String.class);
+    private static final MethodHandle FLUSH = App.method("PipeVerifier", "flush",
+            MethodType.methodType(void.class, Object.class));
+    private static final MethodHandle ROWS = App.getter("PipeVerifier", "rows", long.class);
+
+    private static final int ROWS_PER_INPUT = 1 << 20;
+
+    @Param({"false", "true"})
+    public boolean mismatchesOnly;
+
+    private final OutputStream discard = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < ROWS_PER_INPUT; i++) {
+            int sent = random.nextInt();
+            csv.append(sent).append(',').append(2 + random.nextInt(65520)).append(',').append(i % 10 == 0 ? sent + 1 : sent).append('\n');
+        }
+        input = csv.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INPUT)
+    public long verify() {
+        try {
+            Object pipe = (Object) NEW_PIPE.invokeExact(discard, mismatchesOnly);
+            VERIFY.invokeExact(pipe, (InputStream) new ByteArrayInputStream(input), "bench");
+            FLUSH.invokeExact(pipe);
+            return (long) ROWS.invokeExact(pipe);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// isPrime from its best case to its worst:
+//   4          even, rejected at once
+//   65521      a sieve lookup
+//   16777259   just above the default sieve bound, full Miller-Rabin
+//   2147483629 a large prime, full Miller-Rabin with every witness
+//   25326001   2251 * 11251, a strong pseudoprime to base 2 that only the second witness exposes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimalityBenchmark {
+    private static final MethodHandle IS_PRIME = App.method(null, "isPrime",
+            MethodType.methodType(boolean.class, int.class), int.class);
+
+    @Param({"4", "65521", "16777259", "2147483629", "25326001"})
+    public int n;
+
+    @Setup
+    public void setUp() throws Throwable {
+        // Build the shared sieve outside the measurement.
+        boolean ignored = (boolean) IS_PRIME.invokeExact(3);
+    }
+
+    @Benchmark
+    public boolean isPrime() {
+        try {
+            return (boolean) IS_PRIME.invokeExact(n);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// PrimalityEngine past the int range:
+//   4759123141          a prime just above 2^32
+//   3825123056546413051 a strong pseudoprime to the first nine prime bases
+//   9223372036854775783 the largest long prime
+// and 2^127 - 1 as a BigInteger, the worst case /api/isPrime accepts.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimalityEngineBenchmark {
+    private static final MethodHandle SHARED = App.method("PrimalityEngine", "shared",
+            MethodType.methodType(Object.class));
+    private static final MethodHandle IS_PRIME_LONG = App.method("PrimalityEngine", "isPrime",
+            MethodType.methodType(boolean.class, Object.class, long.class), long.class);
+    private static final MethodHandle IS_PRIME_BIG = App.method("PrimalityEngine", "isPrime",
+            MethodType.methodType(boolean.class, Object.class, BigInteger.class), BigInteger.class);
+
+    private static final BigInteger MERSENNE_127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+
+    private Object engine;
+
+    @State(Scope.Thread)
+    public static class Wide {
+        @Param({"4759123141", "3825123056546413051", "9223372036854775783"})
+        public long n;
+    }
+
+    @Setup
+    public void setUp() throws Throwable {
+        engine = (Object) SHARED.invokeExact();
+    }
+
+    @Benchmark
+    public boolean isPrimeLong(Wide wide) {
+        try {
+            return (boolean) IS_PRIME_LONG.invokeExact(engine, wide.n);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public boolean isPrimeMersenne127() {
+        try {
+            return (boolean) IS_PRIME_BIG.invokeExact(engine, MERSENNE_127);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
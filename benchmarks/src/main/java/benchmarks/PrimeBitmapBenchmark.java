@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The full 2^31 prime bitmap: building it (single shot, on every core), then lookup, a count over the whole
+// range, nth and nextPrime against it. Needs about 300 MiB of direct memory.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimeBitmapBenchmark {
+    private static final MethodHandle BUILD = App.method("PrimeBitmap", "build",
+            MethodType.methodType(Object.class, long.class), long.class);
+    private static final MethodHandle IS_PRIME = App.method("PrimeBitmap", "isPrime",
+            MethodType.methodType(boolean.class, Object.class, long.class), long.class);
+    private static final MethodHandle COUNT = App.method("PrimeBitmap", "count",
+            MethodType.methodType(long.class, Object.class, long.class, long.class), long.class, long.class);
+    private static final MethodHandle NTH = App.method("PrimeBitmap", "nth",
+            MethodType.methodType(long.class, Object.class, long.class), long.class);
+    private static final MethodHandle NEXT_PRIME = App.method("PrimeBitmap", "nextPrime",
+            MethodType.methodType(long.class, Object.class, long.class), long.class);
+
+    private static final long LIMIT = 1L << 31;
+    private static final long N = 2147483629L;
+
+    private Object bitmap;
+
+    @Setup
+    public void setUp() throws Throwable {
+        bitmap = (Object) BUILD.invokeExact(LIMIT);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Object build() {
+        try {
+            return (Object) BUILD.invokeExact(LIMIT);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public boolean isPrime() {
+        try {
+            return (boolean) IS_PRIME.invokeExact(bitmap, N);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public long countAll() {
+        try {
+            return (long) COUNT.invokeExact(bitmap, 0L, LIMIT - 1);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public long nth() {
+        try {
+            return (long) NTH.invokeExact(bitmap, 100_000_000L);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+
+    @Benchmark
+    public long nextPrime() {
+        try {
+            return (long) NEXT_PRIME.invokeExact(bitmap, N);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// KeyAdvisor.rank scoring every key in [2, 2^20 + 1] against all four error models, bypassing its result
+// cache, per key, for a small and a large maxDelta.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecommendBenchmark {
+    private static final MethodHandle RANK = App.method("KeyAdvisor", "rank",
+            MethodType.methodType(Object.class, int.class, int.class, long.class, int[].class),
+            int.class, int.class, long.class, int[].class);
+
+    private static final int KEYS = 1 << 20;
+    // KeyAdvisor.DELTA, DIGIT, TRANSPOSITION and BIT.
+    private static final int[] MODELS = {0, 1, 2, 3};
+
+    @Param({"1000", "1000000"})
+    public long maxDelta;
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public Object rank() {
+        try {
+            return (Object) RANK.invokeExact(2, KEYS + 1, maxDelta, MODELS);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// RollingChecksum sliding a window over 16 MiB, with a target no window matches (score per 16 MiB).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RollingBenchmark {
+    private static final MethodHandle NEW_ROLLING = App.constructor("RollingChecksum",
+            MethodType.methodType(Object.class, int.class, int.class), int.class, int.class);
+    private static final MethodHandle SCAN = App.method("RollingChecksum", "scan",
+            MethodType.methodType(void.class, Object.class, byte[].class, int.class, int.class, long.class, LongConsumer.class),
+            byte[].class, int.class, int.class, long.class, LongConsumer.class);
+    private static final MethodHandle VALUE = App.method("RollingChecksum", "value",
+            MethodType.methodType(long.class, Object.class));
+
+    @Param({"65521", "2147483629"})
+    public int key;
+
+    @Param({"16", "4096"})
+    public int window;
+
+    private final byte[] buffer = new byte[16 << 20];
+    private final LongConsumer ignore = offset -> { };
+
+    @Setup
+    public void setUp() {
+        new Random(42).nextBytes(buffer);
+    }
+
+    @Benchmark
+    public long scan() {
+        try {
+            Object rolling = (Object) NEW_ROLLING.invokeExact(key, window);
+            SCAN.invokeExact(rolling, buffer, 0, buffer.length, -1L, ignore);
+            return (long) VALUE.invokeExact(rolling);
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
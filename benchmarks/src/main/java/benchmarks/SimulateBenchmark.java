@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// CorruptionSimulator trials against key 65521, per trial: each error mode on the benchmark thread, then all
+// three modes across every core of the common pool.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulateBenchmark {
+    private static final MethodHandle NEW_SIMULATOR = App.constructor("CorruptionSimulator",
+            MethodType.methodType(Object.class, int.class, int[].class, long.class, int.class, int.class),
+            int.class, int[].class, long.class, int.class, int.class);
+    private static final MethodHandle START = App.method("CorruptionSimulator", "start",
+            MethodType.methodType(void.class, Object.class, Executor.class, int.class, long.class),
+            Executor.class, int.class, long.class);
+    private static final MethodHandle AWAIT = App.method("CorruptionSimulator", "await",
+            MethodType.methodType(void.class, Object.class, long.class, TimeUnit.class), long.class, TimeUnit.class);
+
+    private static final int TRIALS = 1 << 20;
+    private static final Executor SAME_THREAD = Runnable::run;
+
+    @State(Scope.Thread)
+    public static class Modes {
+        // CorruptionSimulator.DELTA, DIGIT and RANDOM.
+        @Param({"0", "1", "2"})
+        public int mode;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIALS)
+    public Object oneThread(Modes modes) {
+        return run(new int[] {modes.mode}, SAME_THREAD, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3 * TRIALS)
+    public Object allCores() {
+        return run(new int[] {0, 1, 2}, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    private static Object run(int[] modes, Executor pool, int workers) {
+        try {
+            Object simulator = (Object) NEW_SIMULATOR.invokeExact(65521, modes, (long) TRIALS, 1, 1000);
+            START.invokeExact(simulator, pool, workers, 42L);
+            AWAIT.invokeExact(simulator, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            return simulator;
+        } catch (Throwable t) {
+            throw App.rethrow(t);
+        }
+    }
+}
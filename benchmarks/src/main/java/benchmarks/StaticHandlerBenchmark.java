@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// StaticHandler assembling a response for a 32 KiB page: identity, gzip, and a conditional GET that ends in 304.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StaticHandlerBenchmark {
+    @Param({"identity", "gzip", "not-modified"})
+    public String variant;
+
+    private Path webRoot;
+    private HttpHandler handler;
+    private StubExchange exchange;
+
+    @Setup
+    public void setUp() throws IOException {
+        webRoot = Files.createTempDirectory("static-bench");
+        StringBuilder page = new StringBuilder("<!doctype html><html><body>\n");
+        for (int i = 0; page.length() < 32 * 1024; i++) {
+            page.append("<p class=\"row\">Row ").append(i).append(": sentData mod prime</p>\n");
+        }
+        Files.write(webRoot.resolve("index.html"), page.append("</body></html>\n").toString().getBytes(StandardCharsets.UTF_8));
+        handler = (HttpHandler) App.construct("StaticHandler", new Class<?>[] {Path.class}, webRoot);
+
+        exchange = new StubExchange("GET", "/index.html");
+        if (!"identity".equals(variant)) {
+            exchange.getRequestHeaders().set("Accept-Encoding", "gzip, deflate");
+        }
+        if ("not-modified".equals(variant)) {
+            handler.handle(exchange);
+            exchange.getRequestHeaders().set("If-None-Match", exchange.getResponseHeaders().getFirst("ETag"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(webRoot.resolve("index.html"));
+        Files.deleteIfExists(webRoot);
+    }
+
+    @Benchmark
+    public int respond() throws IOException {
+        exchange.reset();
+        handler.handle(exchange);
+        return exchange.bodyLength() + exchange.getResponseCode();
+    }
+}
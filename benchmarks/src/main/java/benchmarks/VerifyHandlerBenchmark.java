@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// VerifyHandler answering one request, without a socket: a GET served from the response cache, a GET with the cache
+// off (computed and encoded every time) and a JSON POST. Run with -prof gc for the bytes allocated per request.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VerifyHandlerBenchmark {
+    private static final MethodHandle CONFIGURE_CACHE = App.method("ResponseCache", "configure",
+            MethodType.methodType(void.class, int.class), int.class);
+
+    @Param({"get-cached", "get-uncached", "post-json"})
+    public String variant;
+
+    private HttpHandler handler;
+    private StubExchange exchange;
+
+    @Setup
+    public void setUp() throws Throwable {
+        handler = (HttpHandler) App.construct("VerifyHandler", new Class<?>[0]);
+        if ("post-json".equals(variant)) {
+            exchange = new StubExchange("POST", "/api/verify");
+            exchange.getRequestHeaders().set("Content-Type", "application/json");
+            exchange.setRequestBody("{\"sentData\":987654321,\"prime\":65521,\"receivedData\":987654322}".getBytes(StandardCharsets.UTF_8));
+        } else {
+            exchange = new StubExchange("GET", "/api/verify?sentData=987654321&prime=65521&receivedData=987654322");
+        }
+        CONFIGURE_CACHE.invokeExact("get-uncached".equals(variant) ? 0 : 10_000);
+    }
+
+    @TearDown
+    public void tearDown() throws Throwable {
+        CONFIGURE_CACHE.invokeExact(10_000);
+    }
+
+    @Benchmark
+    public int respond() throws IOException {
+        exchange.reset();
+        handler.handle(exchange);
+        return exchange.bodyLength() + exchange.getResponseCode();
+    }
+}